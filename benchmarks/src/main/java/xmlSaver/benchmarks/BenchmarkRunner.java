@@ -0,0 +1,20 @@
+package xmlSaver.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkRunner {
+    // same command line as the plain JMH launcher, with the GC profiler always attached
+    // so every run reports gc.alloc.rate and gc.alloc.rate.norm (bytes/op) next to ops/s
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        var options = new OptionsBuilder().
+            parent(new CommandLineOptions(args)).
+            addProfiler(GCProfiler.class).
+            build();
+        new Runner(options).run();
+    }
+}
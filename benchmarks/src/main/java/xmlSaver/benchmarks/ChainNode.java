@@ -0,0 +1,22 @@
+package xmlSaver.benchmarks;
+
+import xmlSaver.XML;
+
+@XML
+public class ChainNode {
+    @XML
+    public int value;
+    @XML
+    public String label;
+    @XML
+    public ChainNode next;
+
+    public ChainNode() {
+    }
+
+    ChainNode(int value, ChainNode next) {
+        this.value = value;
+        this.label = "node-" + value;
+        this.next = next;
+    }
+}
@@ -0,0 +1,30 @@
+package xmlSaver.benchmarks;
+
+import xmlSaver.XML;
+
+// tracked through equals and hashCode instead of identity
+@XML
+public class EqualNode {
+    @XML
+    public int value;
+    @XML
+    public EqualNode peer;
+
+    public EqualNode() {
+    }
+
+    EqualNode(int value, EqualNode peer) {
+        this.value = value;
+        this.peer = peer;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EqualNode && ((EqualNode) o).value == this.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(this.value);
+    }
+}
@@ -0,0 +1,84 @@
+package xmlSaver.benchmarks;
+
+import xmlSaver.example.TestStructure;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public enum GraphShape {
+    // many flat objects with twenty scalar fields each
+    WIDE {
+        @Override
+        Object create(int size) {
+            var objects = new ArrayList<WideObject>(size);
+            for (int i = 0; i < size; i++) {
+                objects.add(new WideObject(i));
+            }
+            return objects;
+        }
+    },
+    // a single linked chain, one nesting level per node
+    DEEP {
+        @Override
+        Object create(int size) {
+            ChainNode head = null;
+            for (int i = size - 1; i >= 0; i--) {
+                head = new ChainNode(i, head);
+            }
+            return head;
+        }
+    },
+    // primitive arrays with a thousand elements per size unit
+    PRIMITIVE_ARRAY {
+        @Override
+        Object create(int size) {
+            var ints = new int[size * 1000];
+            var doubles = new double[size * 1000];
+            var bytes = new byte[size * 1000];
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = i * 7919;
+                doubles[i] = i / 7.0;
+                bytes[i] = (byte) i;
+            }
+            return new Object[]{ints, doubles, bytes};
+        }
+    },
+    MAP {
+        @Override
+        Object create(int size) {
+            var map = new HashMap<Integer, ChainNode>();
+            for (int i = 0; i < size; i++) {
+                map.put(i, new ChainNode(i, null));
+            }
+            return map;
+        }
+    },
+    // a ring of strictly tracked nodes that all point into a small shared pool
+    SHARED {
+        @Override
+        Object create(int size) {
+            var nodes = new ArrayList<SharedNode>(size);
+            for (int i = 0; i < size; i++) {
+                nodes.add(new SharedNode(i));
+            }
+            for (int i = 0; i < size; i++) {
+                var node = nodes.get(i);
+                node.next = nodes.get((i + 1) % size);
+                node.shared = nodes.get(i % 16);
+            }
+            return nodes;
+        }
+    },
+    MIXED {
+        @Override
+        Object create(int size) {
+            var structures = new ArrayList<TestStructure>(size);
+            for (int i = 0; i < size; i++) {
+                structures.add(new TestStructure());
+            }
+            return structures;
+        }
+    };
+
+    abstract Object create(int size);
+}
@@ -0,0 +1,47 @@
+package xmlSaver.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xmlSaver.XmlDeserializer;
+import xmlSaver.XmlSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class LoadBenchmark {
+    @Param({"WIDE", "DEEP", "PRIMITIVE_ARRAY", "MAP", "SHARED", "MIXED"})
+    public GraphShape shape;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private byte[] document;
+
+    @Setup
+    public void setUp() {
+        var output = new ByteArrayOutputStream();
+        XmlSerializer.saveXml(this.shape.create(this.size), output);
+        this.document = output.toByteArray();
+    }
+
+    @Benchmark
+    public Object loadXml() {
+        return XmlDeserializer.loadXml(new ByteArrayInputStream(this.document));
+    }
+}
@@ -0,0 +1,48 @@
+package xmlSaver.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xmlSaver.XmlSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class SaveBenchmark {
+    @Param({"WIDE", "DEEP", "PRIMITIVE_ARRAY", "MAP", "SHARED", "MIXED"})
+    public GraphShape shape;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private Object graph;
+    private ByteArrayOutputStream output;
+
+    @Setup
+    public void setUp() {
+        this.graph = this.shape.create(this.size);
+        this.output = new ByteArrayOutputStream();
+        XmlSerializer.saveXml(this.graph, this.output);
+    }
+
+    @Benchmark
+    public int saveXml() {
+        this.output.reset();
+        XmlSerializer.saveXml(this.graph, this.output);
+        return this.output.size();
+    }
+}
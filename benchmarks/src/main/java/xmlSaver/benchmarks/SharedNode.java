@@ -0,0 +1,20 @@
+package xmlSaver.benchmarks;
+
+import xmlSaver.XML;
+
+@XML(isStrict = true)
+public class SharedNode {
+    @XML
+    public int id;
+    @XML
+    public SharedNode next;
+    @XML
+    public SharedNode shared;
+
+    public SharedNode() {
+    }
+
+    SharedNode(int id) {
+        this.id = id;
+    }
+}
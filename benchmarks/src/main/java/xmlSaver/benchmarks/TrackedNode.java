@@ -0,0 +1,19 @@
+package xmlSaver.benchmarks;
+
+import xmlSaver.XML;
+
+@XML(isStrict = true)
+public class TrackedNode {
+    @XML
+    public int value;
+    @XML
+    public TrackedNode peer;
+
+    public TrackedNode() {
+    }
+
+    TrackedNode(int value, TrackedNode peer) {
+        this.value = value;
+        this.peer = peer;
+    }
+}
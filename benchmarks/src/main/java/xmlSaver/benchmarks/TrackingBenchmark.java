@@ -0,0 +1,68 @@
+package xmlSaver.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xmlSaver.XmlSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+// average time per save, so doubling the object count should double the score
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class TrackingBenchmark {
+    @Param({"25000", "50000", "100000", "200000"})
+    public int objects;
+
+    @Param({"true", "false"})
+    public boolean strict;
+
+    private Object graph;
+    private ByteArrayOutputStream output;
+
+    @Setup
+    public void setUp() {
+        this.graph = this.strict ? createStrict(this.objects) : createEqual(this.objects);
+        this.output = new ByteArrayOutputStream();
+        XmlSerializer.saveXml(this.graph, this.output);
+    }
+
+    @Benchmark
+    public int saveXml() {
+        this.output.reset();
+        XmlSerializer.saveXml(this.graph, this.output);
+        return this.output.size();
+    }
+
+    // every node but the first refers back to the node at half its index, which the list saved
+    // before it, so each peer is a lookup of an object that is already tracked
+    private static Object createStrict(int objects) {
+        var nodes = new ArrayList<TrackedNode>(objects);
+        for (int i = 0; i < objects; i++) {
+            nodes.add(new TrackedNode(i, i > 0 ? nodes.get(i / 2) : null));
+        }
+        return nodes;
+    }
+
+    private static Object createEqual(int objects) {
+        var nodes = new ArrayList<EqualNode>(objects);
+        for (int i = 0; i < objects; i++) {
+            nodes.add(new EqualNode(i, i > 0 ? nodes.get(i / 2) : null));
+        }
+        return nodes;
+    }
+}
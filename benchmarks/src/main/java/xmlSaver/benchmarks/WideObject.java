@@ -0,0 +1,73 @@
+package xmlSaver.benchmarks;
+
+import xmlSaver.XML;
+
+@XML
+public class WideObject {
+    @XML
+    public int i0;
+    @XML
+    public int i1;
+    @XML
+    public int i2;
+    @XML
+    public int i3;
+    @XML
+    public long l0;
+    @XML
+    public long l1;
+    @XML
+    public long l2;
+    @XML
+    public long l3;
+    @XML
+    public double d0;
+    @XML
+    public double d1;
+    @XML
+    public double d2;
+    @XML
+    public double d3;
+    @XML
+    public boolean b0;
+    @XML
+    public boolean b1;
+    @XML
+    public String s0;
+    @XML
+    public String s1;
+    @XML
+    public String s2;
+    @XML
+    public String s3;
+    @XML
+    public Integer w0;
+    @XML
+    public Double w1;
+
+    public WideObject() {
+    }
+
+    WideObject(int seed) {
+        i0 = seed;
+        i1 = seed * 31;
+        i2 = -seed;
+        i3 = seed ^ 0x5f5f;
+        l0 = seed * 1_000_003L;
+        l1 = Long.MAX_VALUE - seed;
+        l2 = -seed * 17L;
+        l3 = seed;
+        d0 = seed / 3.0;
+        d1 = Math.sqrt(seed);
+        d2 = seed * 1e-7;
+        d3 = -seed * 2.5;
+        b0 = seed % 2 == 0;
+        b1 = seed % 3 == 0;
+        s0 = "value-" + seed;
+        s1 = "wide object";
+        s2 = Integer.toHexString(seed);
+        s3 = "";
+        w0 = seed;
+        w1 = seed + 0.5;
+    }
+}
@@ -0,0 +1,252 @@
+package xmlSaver.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@SupportedAnnotationTypes(XmlCodecProcessor.XML_ANNOTATION)
+public class XmlCodecProcessor extends AbstractProcessor {
+    static final String XML_ANNOTATION = "xmlSaver.XML";
+    // must match XmlClassDescriptor.GENERATED_CODEC_SUFFIX in the runtime library
+    private static final String CODEC_SUFFIX = "_XmlCodec";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    processClass((TypeElement) element);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void processClass(TypeElement type) {
+        var fields = new ArrayList<VariableElement>();
+        var problem = findProblem(type, fields);
+        if (problem != null) {
+            this.processingEnv.getMessager().printMessage(
+                Diagnostic.Kind.NOTE,
+                "no xmlSaver codec generated, " + problem + "; the class is serialized reflectively",
+                type
+            );
+            return;
+        }
+        try {
+            writeCodec(type, fields);
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(
+                Diagnostic.Kind.ERROR,
+                "xmlSaver codec cannot be written: " + e.getMessage(),
+                type
+            );
+        }
+    }
+
+    private String findProblem(TypeElement type, List<VariableElement> fields) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "the class is abstract";
+        }
+        for (Element enclosing = type; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            var nested = (TypeElement) enclosing;
+            if (nested.getModifiers().contains(Modifier.PRIVATE)) {
+                return "the class is not visible to its package";
+            }
+            if (nested.getNestingKind() == NestingKind.MEMBER && !nested.getModifiers().contains(Modifier.STATIC)) {
+                return "inner classes need an enclosing instance";
+            }
+            if (nested.getNestingKind() == NestingKind.LOCAL || nested.getNestingKind() == NestingKind.ANONYMOUS) {
+                return "local classes cannot be referenced";
+            }
+        }
+        var constructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream().
+            filter(x -> x.getParameters().isEmpty()).
+            findFirst();
+        if (constructor.isEmpty() || constructor.get().getModifiers().contains(Modifier.PRIVATE)) {
+            return "there is no accessible no-arg constructor";
+        }
+        var codecPackage = getPackage(type);
+        for (TypeElement current = type; current != null; current = getSuperclass(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (!hasXmlAnnotation(field)) {
+                    continue;
+                }
+                var modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.FINAL)) {
+                    return "field " + field.getSimpleName() + " is final";
+                }
+                if (modifiers.contains(Modifier.PRIVATE)) {
+                    return "field " + field.getSimpleName() + " is private";
+                }
+                if (!modifiers.contains(Modifier.PUBLIC) && !getPackage(current).equals(codecPackage)) {
+                    return "field " + field.getSimpleName() + " is not visible from " + codecPackage;
+                }
+                fields.add(field);
+            }
+        }
+        return null;
+    }
+
+    private void writeCodec(TypeElement type, List<VariableElement> fields) throws IOException {
+        var elements = this.processingEnv.getElementUtils();
+        var types = this.processingEnv.getTypeUtils();
+        var packageName = getPackage(type);
+        var binaryName = elements.getBinaryName(type).toString();
+        var codecName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + CODEC_SUFFIX;
+        var typeName = type.getQualifiedName().toString();
+        var xml = getXmlAnnotation(type);
+
+        var file = this.processingEnv.getFiler().createSourceFile(
+            packageName.isEmpty() ? codecName : packageName + "." + codecName,
+            type
+        );
+        try (var out = new PrintWriter(file.openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.printf("package %s;%n%n", packageName);
+            }
+            out.printf("@javax.annotation.processing.Generated(\"%s\")%n", XmlCodecProcessor.class.getName());
+            out.printf("@SuppressWarnings({\"rawtypes\", \"unchecked\"})%n");
+            out.printf("public final class %s implements xmlSaver.XmlGeneratedCodec<%s> {%n", codecName, typeName);
+            out.printf("    @Override%n");
+            out.printf("    public %s newInstance() {%n", typeName);
+            out.printf("        return new %s();%n", typeName);
+            out.printf("    }%n%n");
+            out.printf("    @Override%n");
+            out.printf("    public boolean isStrict() {%n");
+            out.printf("        return %s;%n", getBooleanValue(xml, "isStrict"));
+            out.printf("    }%n%n");
+            out.printf("    @Override%n");
+            out.printf("    public boolean isClone() {%n");
+            out.printf("        return %s;%n", getBooleanValue(xml, "isClone"));
+            out.printf("    }%n%n");
+            out.printf("    @Override%n");
+            out.printf("    public void save(%s object, xmlSaver.XmlCodecWriter writer) {%n", typeName);
+            for (VariableElement field : fields) {
+                out.printf(
+                    "        writer.write%s(\"%s\", %s);%n",
+                    getAccessorSuffix(field.asType()),
+                    field.getSimpleName(),
+                    getFieldReference(type, field)
+                );
+            }
+            out.printf("    }%n%n");
+            out.printf("    @Override%n");
+            out.printf("    public void load(%s object, xmlSaver.XmlCodecReader reader) {%n", typeName);
+            for (VariableElement field : fields) {
+                var suffix = getAccessorSuffix(field.asType());
+                out.printf(
+                    "        %s = %sreader.read%s(\"%s\");%n",
+                    getFieldReference(type, field),
+                    suffix.equals("Object") ? "(" + types.erasure(field.asType()) + ") " : "",
+                    suffix,
+                    field.getSimpleName()
+                );
+            }
+            out.printf("    }%n");
+            out.printf("}%n");
+        }
+    }
+
+    private String getFieldReference(TypeElement type, VariableElement field) {
+        var owner = (TypeElement) field.getEnclosingElement();
+        if (field.getModifiers().contains(Modifier.STATIC)) {
+            return owner.getQualifiedName() + "." + field.getSimpleName();
+        }
+        if (owner.equals(type)) {
+            return "object." + field.getSimpleName();
+        }
+        // inherited fields are reached through their declaring class so shadowed names resolve like reflection does
+        return "((" + owner.getQualifiedName() + ") object)." + field.getSimpleName();
+    }
+
+    private static String getAccessorSuffix(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "Boolean";
+            case BYTE:
+                return "Byte";
+            case SHORT:
+                return "Short";
+            case CHAR:
+                return "Char";
+            case INT:
+                return "Int";
+            case LONG:
+                return "Long";
+            case FLOAT:
+                return "Float";
+            case DOUBLE:
+                return "Double";
+            case DECLARED:
+                var element = (TypeElement) ((DeclaredType) type).asElement();
+                return element.getQualifiedName().contentEquals("java.lang.String") ? "String" : "Object";
+            default:
+                return "Object";
+        }
+    }
+
+    private String getPackage(TypeElement type) {
+        PackageElement packageElement = this.processingEnv.getElementUtils().getPackageOf(type);
+        return packageElement.getQualifiedName().toString();
+    }
+
+    private static TypeElement getSuperclass(TypeElement type) {
+        var superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        var element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private static boolean hasXmlAnnotation(Element element) {
+        return getXmlAnnotation(element) != null;
+    }
+
+    private static AnnotationMirror getXmlAnnotation(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            var annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(XML_ANNOTATION)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private String getBooleanValue(AnnotationMirror mirror, String name) {
+        var values = this.processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        for (var entry : values.entrySet()) {
+            ExecutableElement key = entry.getKey();
+            if (key.getSimpleName().contentEquals(name)) {
+                return String.valueOf(entry.getValue().getValue());
+            }
+        }
+        return "false";
+    }
+}
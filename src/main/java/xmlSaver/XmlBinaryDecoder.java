@@ -0,0 +1,232 @@
+package xmlSaver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+import static xmlSaver.XmlBinaryEncoder.*;
+
+class XmlBinaryDecoder {
+    private final InputStream stream;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+    // buffer offset of the first byte read since the stream was last marked
+    private int markOffset;
+    private final ArrayList<String> strings = new ArrayList<>();
+    private final ArrayDeque<XmlNode> nodes = new ArrayDeque<>();
+
+    XmlBinaryDecoder(InputStream stream) {
+        this.stream = stream;
+    }
+
+    static boolean isBinary(InputStream stream) throws IOException {
+        stream.mark(MAGIC.length);
+        try {
+            for (byte b : MAGIC) {
+                if (stream.read() != (b & 0xff)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            stream.reset();
+        }
+    }
+
+    XmlNode load() {
+        for (byte b : MAGIC) {
+            if (readByte() != (b & 0xff)) {
+                throw new IllegalStateException("document isn`t in the binary format");
+            }
+        }
+        XmlNode root = null;
+        while (root == null || !this.nodes.isEmpty()) {
+            var token = readByte();
+            if (token == NODE) {
+                var node = readNode();
+                if (!this.nodes.isEmpty()) {
+                    this.nodes.peek().appendChild(node);
+                } else if (root == null) {
+                    root = node;
+                } else {
+                    throw new IllegalStateException("second root node <" + node.getNodeName() + ">");
+                }
+                this.nodes.push(node);
+            } else if (token == END && !this.nodes.isEmpty()) {
+                this.nodes.pop();
+            } else {
+                throw new IllegalStateException("unknown binary token " + token);
+            }
+        }
+        giveBack();
+        return root;
+    }
+
+    // bytes read behind the root node go back to a stream that supports mark and reset
+    private void giveBack() {
+        if (!this.stream.markSupported() || this.position == this.limit) {
+            return;
+        }
+        try {
+            this.stream.reset();
+            var count = this.position - this.markOffset;
+            while (count > 0) {
+                var skipped = this.stream.skip(count);
+                if (skipped <= 0) {
+                    return;
+                }
+                count -= skipped;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private XmlNode readNode() {
+        var node = new XmlNode(readTableString());
+        var attributeCount = (int) readVarint();
+        for (int i = 0; i < attributeCount; i++) {
+            var name = readTableString();
+            var kind = readByte();
+            if (kind == ATTRIBUTE_NUMBER) {
+                node.appendAttribute(name, Long.toString(readVarint()));
+            } else if (kind == ATTRIBUTE_STRING) {
+                node.appendAttribute(name, readTableString());
+            } else {
+                throw new IllegalStateException("unknown binary attribute kind " + kind);
+            }
+        }
+        var kind = readByte();
+        switch (kind) {
+            case VALUE_NONE:
+                break;
+            case VALUE_STRING:
+                node.setValue(readString());
+                break;
+            case VALUE_TRUE:
+                node.setValue(Boolean.TRUE);
+                break;
+            case VALUE_FALSE:
+                node.setValue(Boolean.FALSE);
+                break;
+            case VALUE_BYTE:
+                node.setValue((byte) readByte());
+                break;
+            case VALUE_SHORT:
+                node.setValue((short) unzigzag(readVarint()));
+                break;
+            case VALUE_CHAR:
+                node.setValue((char) readVarint());
+                break;
+            case VALUE_INT:
+                node.setValue((int) unzigzag(readVarint()));
+                break;
+            case VALUE_LONG:
+                node.setValue(unzigzag(readVarint()));
+                break;
+            case VALUE_FLOAT:
+                node.setValue(Float.intBitsToFloat((int) readFixed(4)));
+                break;
+            case VALUE_DOUBLE:
+                node.setValue(Double.longBitsToDouble(readFixed(8)));
+                break;
+            case VALUE_BYTES:
+                node.setValue(readBytes((int) readVarint()));
+                break;
+            default:
+                throw new IllegalStateException("unknown binary value kind " + kind);
+        }
+        return node;
+    }
+
+    private String readTableString() {
+        var index = (int) readVarint();
+        if (index > 0) {
+            return this.strings.get(index - 1);
+        }
+        var value = readString();
+        this.strings.add(value);
+        return value;
+    }
+
+    private String readString() {
+        var length = (int) readVarint();
+        if (length <= this.buffer.length) {
+            ensure(length);
+            var value = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+            return value;
+        }
+        return new String(readBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(int length) {
+        var bytes = new byte[length];
+        for (int offset = 0; offset < length; ) {
+            ensure(1);
+            var count = Math.min(length - offset, this.limit - this.position);
+            System.arraycopy(this.buffer, this.position, bytes, offset, count);
+            this.position += count;
+            offset += count;
+        }
+        return bytes;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            var b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("malformed binary varint");
+    }
+
+    private long readFixed(int length) {
+        ensure(length);
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value |= (long) (this.buffer[this.position++] & 0xff) << (i * 8);
+        }
+        return value;
+    }
+
+    private int readByte() {
+        ensure(1);
+        return this.buffer[this.position++] & 0xff;
+    }
+
+    // keeps at least `length` unread bytes in the buffer, length never exceeds the buffer size
+    private void ensure(int length) {
+        if (this.limit - this.position >= length) {
+            return;
+        }
+        System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+        this.limit -= this.position;
+        this.position = 0;
+        try {
+            while (this.limit < length) {
+                if (this.stream.markSupported()) {
+                    this.stream.mark(this.buffer.length);
+                    this.markOffset = this.limit;
+                }
+                var count = this.stream.read(this.buffer, this.limit, this.buffer.length - this.limit);
+                if (count < 0) {
+                    throw new IllegalStateException("unexpected end of binary document");
+                }
+                this.limit += count;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,245 @@
+package xmlSaver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+// node names, attribute keys and attribute strings go through a table that grows as strings first appear
+class XmlBinaryEncoder extends XmlNodeVisitor {
+    static final byte[] MAGIC = {'X', 'S', 'B', 1};
+
+    static final int END = 0;
+    static final int NODE = 1;
+
+    static final int ATTRIBUTE_STRING = 0;
+    static final int ATTRIBUTE_NUMBER = 1;
+
+    static final int VALUE_NONE = 0;
+    static final int VALUE_STRING = 1;
+    static final int VALUE_TRUE = 2;
+    static final int VALUE_FALSE = 3;
+    static final int VALUE_BYTE = 4;
+    static final int VALUE_SHORT = 5;
+    static final int VALUE_CHAR = 6;
+    static final int VALUE_INT = 7;
+    static final int VALUE_LONG = 8;
+    static final int VALUE_FLOAT = 9;
+    static final int VALUE_DOUBLE = 10;
+    static final int VALUE_BYTES = 11;
+
+    private final OutputStream stream;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private final HashMap<String, Integer> strings = new HashMap<>();
+
+    XmlBinaryEncoder(OutputStream stream) {
+        this.stream = stream;
+        writeBytes(MAGIC, 0, MAGIC.length);
+    }
+
+    @Override
+    void beginNode(String nodeName, String[] attributes, int attributeCount) {
+        writeHeader(nodeName, attributes, attributeCount);
+        writeByte(VALUE_NONE);
+    }
+
+    @Override
+    void beginNode(String nodeName, Object nodeValue, String[] attributes, int attributeCount) {
+        writeHeader(nodeName, attributes, attributeCount);
+        writeValue(nodeValue);
+    }
+
+    @Override
+    void endNode() {
+        writeByte(END);
+    }
+
+    void flush() throws IOException {
+        this.stream.write(this.buffer, 0, this.position);
+        this.position = 0;
+    }
+
+    private void writeHeader(String nodeName, String[] attributes, int attributeCount) {
+        writeByte(NODE);
+        writeTableString(nodeName);
+        writeVarint(attributeCount);
+        for (int i = 0; i < attributeCount * 2; i += 2) {
+            writeTableString(attributes[i]);
+            var value = attributes[i + 1];
+            if (isNumber(value)) {
+                writeByte(ATTRIBUTE_NUMBER);
+                writeVarint(Long.parseLong(value));
+            } else {
+                writeByte(ATTRIBUTE_STRING);
+                writeTableString(value);
+            }
+        }
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            writeByte(VALUE_NONE);
+        } else if (value instanceof Integer) {
+            writeByte(VALUE_INT);
+            writeVarint(zigzag((Integer) value));
+        } else if (value instanceof Long) {
+            writeByte(VALUE_LONG);
+            writeVarint(zigzag((Long) value));
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+        } else if (value instanceof Double) {
+            writeByte(VALUE_DOUBLE);
+            writeFixed(Double.doubleToRawLongBits((Double) value), 8);
+        } else if (value instanceof Float) {
+            writeByte(VALUE_FLOAT);
+            writeFixed(Float.floatToRawIntBits((Float) value), 4);
+        } else if (value instanceof Short) {
+            writeByte(VALUE_SHORT);
+            writeVarint(zigzag((Short) value));
+        } else if (value instanceof Byte) {
+            writeByte(VALUE_BYTE);
+            writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            writeByte(VALUE_CHAR);
+            writeVarint((Character) value);
+        } else if (value instanceof byte[]) {
+            var bytes = (byte[]) value;
+            writeByte(VALUE_BYTES);
+            writeVarint(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        } else {
+            writeByte(VALUE_STRING);
+            writeString(value.toString());
+        }
+    }
+
+    private void writeTableString(String value) {
+        var index = this.strings.get(value);
+        if (index != null) {
+            writeVarint(index + 1);
+            return;
+        }
+        this.strings.put(value, this.strings.size());
+        writeVarint(0);
+        writeString(value);
+    }
+
+    private void writeString(String value) {
+        if (value.length() <= this.buffer.length) {
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+            return;
+        }
+        // a large value is encoded into the buffer a chunk at a time instead of into one array of its own
+        writeVarint(utf8Length(value));
+        var encoder = StandardCharsets.UTF_8.newEncoder().
+            onMalformedInput(CodingErrorAction.REPLACE).
+            onUnmappableCharacter(CodingErrorAction.REPLACE);
+        var chars = CharBuffer.wrap(value);
+        while (true) {
+            ensure(this.buffer.length);
+            var bytes = ByteBuffer.wrap(this.buffer, this.position, this.buffer.length - this.position);
+            var result = encoder.encode(chars, bytes, true);
+            this.position = bytes.position();
+            if (result.isUnderflow()) {
+                break;
+            }
+        }
+        ensure(16);
+        var bytes = ByteBuffer.wrap(this.buffer, this.position, this.buffer.length - this.position);
+        encoder.flush(bytes);
+        this.position = bytes.position();
+    }
+
+    // the length String.getBytes would produce, a lone surrogate becomes a single `?`
+    private static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void writeVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7fL) != 0) {
+            this.buffer[this.position++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        this.buffer[this.position++] = (byte) value;
+    }
+
+    private void writeFixed(long value, int length) {
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            this.buffer[this.position++] = (byte) (value >>> (i * 8));
+        }
+    }
+
+    private void writeByte(int value) {
+        ensure(1);
+        this.buffer[this.position++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) {
+        if (length > this.buffer.length) {
+            ensure(this.buffer.length);
+            write(bytes, offset, length);
+            return;
+        }
+        ensure(length);
+        System.arraycopy(bytes, offset, this.buffer, this.position, length);
+        this.position += length;
+    }
+
+    private void ensure(int length) {
+        if (this.buffer.length - this.position < length) {
+            write(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+    }
+
+    private void write(byte[] bytes, int offset, int length) {
+        try {
+            this.stream.write(bytes, offset, length);
+        } catch (IOException e) {
+            throw new IllegalStateException("document cannot be written!", e);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // only canonical decimals survive the round trip through a varint unchanged
+    private static boolean isNumber(String value) {
+        var length = value.length();
+        if (length == 0 || length > 18 || (length > 1 && value.charAt(0) == '0')) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            var c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
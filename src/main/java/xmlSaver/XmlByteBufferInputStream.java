@@ -0,0 +1,50 @@
+package xmlSaver;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+class XmlByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    XmlByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return this.buffer.hasRemaining() ? this.buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!this.buffer.hasRemaining()) {
+            return -1;
+        }
+        var count = Math.min(length, this.buffer.remaining());
+        this.buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return this.buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+        this.buffer.mark();
+    }
+
+    @Override
+    public void reset() {
+        this.buffer.reset();
+    }
+}
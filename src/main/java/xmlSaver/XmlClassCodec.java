@@ -0,0 +1,354 @@
+package xmlSaver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// codecs spun at runtime for classes the annotation processor did not cover. every handle the codec calls is a
+// static final field of the spun class, the JIT treats those as constants and inlines the field reads and writes
+final class XmlClassCodec {
+    private static final String CODEC_PREFIX = "xmlSaver/XmlClassCodec$Codec";
+    private static final String HANDLE = "java/lang/invoke/MethodHandle";
+    private static final String HANDLE_DESCRIPTOR = "L" + HANDLE + ";";
+    private static final AtomicInteger codecCount = new AtomicInteger();
+    // handles of a spun class between its definition and its initializer
+    private static final ConcurrentHashMap<Class<?>, MethodHandle[]> pendingHandles = new ConcurrentHashMap<>();
+
+    private XmlClassCodec() {
+    }
+
+    // null for a class the generator cannot handle, it keeps using the reflective path
+    @SuppressWarnings("unchecked")
+    static XmlGeneratedCodec<Object> create(XmlClassDescriptor descriptor) {
+        var accessors = descriptor.getAccessors();
+        try {
+            var lookup = MethodHandles.lookup();
+            // the constructor comes first, then a getter and a setter per field
+            var handles = new MethodHandle[1 + accessors.length * 2];
+            if (handles.length > Short.MAX_VALUE) {
+                return null;
+            }
+            var kinds = new Kind[accessors.length];
+            handles[0] = findConstructor(descriptor, lookup);
+            for (int i = 0; i < accessors.length; i++) {
+                var field = accessors[i].getField();
+                var isStatic = Modifier.isStatic(field.getModifiers());
+                // elements sharing a name are told apart by position, which only the accessor binding does
+                if (isStatic && Modifier.isFinal(field.getModifiers()) || descriptor.nextWithSameName(i) >= 0) {
+                    return null;
+                }
+                kinds[i] = Kind.of(field.getType());
+                field.setAccessible(true);
+                var getter = lookup.unreflectGetter(field);
+                var setter = lookup.unreflectSetter(field);
+                if (isStatic) {
+                    getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                    setter = MethodHandles.dropArguments(setter, 0, Object.class);
+                }
+                handles[1 + i * 2] = getter.asType(MethodType.methodType(kinds[i].type, Object.class));
+                handles[2 + i * 2] = setter.asType(MethodType.methodType(void.class, Object.class, kinds[i].type));
+            }
+            var name = CODEC_PREFIX + codecCount.incrementAndGet();
+            var codecClazz = lookup.defineClass(writeClass(name, descriptor, kinds));
+            pendingHandles.put(codecClazz, handles);
+            try {
+                return (XmlGeneratedCodec<Object>) codecClazz.getDeclaredConstructor().newInstance();
+            } finally {
+                pendingHandles.remove(codecClazz);
+            }
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException | IOException e) {
+            return null;
+        }
+    }
+
+    // called from the static initializer of a spun codec
+    static MethodHandle[] takeHandles(Class<?> codecClazz) {
+        return pendingHandles.remove(codecClazz);
+    }
+
+    private static MethodHandle findConstructor(XmlClassDescriptor descriptor, MethodHandles.Lookup lookup)
+        throws ReflectiveOperationException {
+        var generator = descriptor.getGenerator();
+        if (generator != null) {
+            return lookup.
+                findVirtual(Supplier.class, "get", MethodType.methodType(Object.class)).
+                bindTo(generator);
+        }
+        var constructor = descriptor.getType().getConstructor();
+        constructor.setAccessible(true);
+        return lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+    }
+
+    private static byte[] writeClass(String name, XmlClassDescriptor descriptor, Kind[] kinds) throws IOException {
+        var pool = new ConstantPool();
+        var thisClazz = pool.clazz(name);
+        var superClazz = pool.clazz("java/lang/Object");
+        var codecInterface = pool.clazz("xmlSaver/XmlGeneratedCodec");
+        var handleCount = 1 + kinds.length * 2;
+        var handleFields = new int[handleCount];
+        for (int i = 0; i < handleCount; i++) {
+            handleFields[i] = pool.field(name, "h" + i, HANDLE_DESCRIPTOR);
+        }
+        var accessors = descriptor.getAccessors();
+
+        var methods = new ByteArrayOutputStream();
+        var out = new DataOutputStream(methods);
+        var code = new Code(pool);
+
+        code.op(0x2a); // aload_0
+        code.opIndex(0xb7, pool.method("java/lang/Object", "<init>", "()V")); // invokespecial
+        code.op(0xb1); // return
+        code.writeMethod(out, 0, "<init>", "()V", 1, 1);
+
+        code.opIndex(0x13, thisClazz); // ldc_w
+        code.opIndex(0xb8, pool.method("xmlSaver/XmlClassCodec", "takeHandles", "(Ljava/lang/Class;)[" + HANDLE_DESCRIPTOR));
+        code.op(0x4b); // astore_0
+        for (int i = 0; i < handleCount; i++) {
+            code.op(0x2a); // aload_0
+            code.opIndex(0x11, i); // sipush
+            code.op(0x32); // aaload
+            code.opIndex(0xb3, handleFields[i]); // putstatic
+        }
+        code.op(0xb1); // return
+        code.writeMethod(out, 0x0008, "<clinit>", "()V", 2, 1);
+
+        code.opIndex(0xb2, handleFields[0]); // getstatic
+        code.opIndex(0xb6, pool.method(HANDLE, "invokeExact", "()Ljava/lang/Object;")); // invokevirtual
+        code.op(0xb0); // areturn
+        code.writeMethod(out, 0x0001, "newInstance", "()Ljava/lang/Object;", 1, 1);
+
+        code.op(descriptor.isStrict() ? 0x04 : 0x03); // iconst_1 or iconst_0
+        code.op(0xac); // ireturn
+        code.writeMethod(out, 0x0001, "isStrict", "()Z", 1, 1);
+
+        code.op(descriptor.isClone() ? 0x04 : 0x03);
+        code.op(0xac);
+        code.writeMethod(out, 0x0001, "isClone", "()Z", 1, 1);
+
+        // writer.writeX(name, (X) getter.invokeExact(object)) for every field
+        for (int i = 0; i < kinds.length; i++) {
+            code.op(0x2c); // aload_2
+            code.opIndex(0x13, pool.string(accessors[i].getName()));
+            code.opIndex(0xb2, handleFields[1 + i * 2]);
+            code.op(0x2b); // aload_1
+            code.opIndex(0xb6, pool.method(HANDLE, "invokeExact", "(Ljava/lang/Object;)" + kinds[i].descriptor));
+            code.invokeInterface(
+                pool.interfaceMethod("xmlSaver/XmlCodecWriter", "write" + kinds[i].suffix,
+                    "(Ljava/lang/String;" + kinds[i].descriptor + ")V"),
+                2 + kinds[i].size
+            );
+        }
+        code.op(0xb1);
+        code.writeMethod(out, 0x0001, "save", "(Ljava/lang/Object;LxmlSaver/XmlCodecWriter;)V", 4, 3);
+
+        // setter.invokeExact(object, reader.readX(name)) for every field
+        for (int i = 0; i < kinds.length; i++) {
+            code.opIndex(0xb2, handleFields[2 + i * 2]);
+            code.op(0x2b); // aload_1
+            code.op(0x2c); // aload_2
+            code.opIndex(0x13, pool.string(accessors[i].getName()));
+            code.invokeInterface(
+                pool.interfaceMethod("xmlSaver/XmlCodecReader", "read" + kinds[i].suffix,
+                    "(Ljava/lang/String;)" + kinds[i].descriptor),
+                2
+            );
+            code.opIndex(0xb6, pool.method(HANDLE, "invokeExact", "(Ljava/lang/Object;" + kinds[i].descriptor + ")V"));
+        }
+        code.op(0xb1);
+        code.writeMethod(out, 0x0001, "load", "(Ljava/lang/Object;LxmlSaver/XmlCodecReader;)V", 4, 3);
+
+        // every constant is in the pool by now, the class header can be written in front of the members
+        var fieldFlags = 0x0002 | 0x0008 | 0x0010; // private static final
+        var fieldNames = new int[handleCount];
+        for (int i = 0; i < handleCount; i++) {
+            fieldNames[i] = pool.utf8("h" + i);
+        }
+        var handleType = pool.utf8(HANDLE_DESCRIPTOR);
+
+        var bytes = new ByteArrayOutputStream();
+        var classFile = new DataOutputStream(bytes);
+        classFile.writeInt(0xcafebabe);
+        classFile.writeShort(0);
+        classFile.writeShort(55); // java 11, straight-line methods need no stack map frames
+        pool.writeTo(classFile);
+        classFile.writeShort(0x0010 | 0x0020 | 0x1000); // final super synthetic
+        classFile.writeShort(thisClazz);
+        classFile.writeShort(superClazz);
+        classFile.writeShort(1);
+        classFile.writeShort(codecInterface);
+        classFile.writeShort(handleCount);
+        for (int i = 0; i < handleCount; i++) {
+            classFile.writeShort(fieldFlags);
+            classFile.writeShort(fieldNames[i]);
+            classFile.writeShort(handleType);
+            classFile.writeShort(0);
+        }
+        classFile.writeShort(7);
+        classFile.write(methods.toByteArray());
+        classFile.writeShort(0);
+        return bytes.toByteArray();
+    }
+
+    // the codec reader and writer methods a field is passed through, every other reference goes through Object
+    private enum Kind {
+        BOOLEAN(boolean.class, "Boolean", "Z", 1),
+        BYTE(byte.class, "Byte", "B", 1),
+        SHORT(short.class, "Short", "S", 1),
+        CHAR(char.class, "Char", "C", 1),
+        INT(int.class, "Int", "I", 1),
+        LONG(long.class, "Long", "J", 2),
+        FLOAT(float.class, "Float", "F", 1),
+        DOUBLE(double.class, "Double", "D", 2),
+        STRING(String.class, "String", "Ljava/lang/String;", 1),
+        OBJECT(Object.class, "Object", "Ljava/lang/Object;", 1);
+
+        final Class<?> type;
+        final String suffix;
+        final String descriptor;
+        final int size;
+
+        Kind(Class<?> type, String suffix, String descriptor, int size) {
+            this.type = type;
+            this.suffix = suffix;
+            this.descriptor = descriptor;
+            this.size = size;
+        }
+
+        static Kind of(Class<?> type) {
+            for (Kind kind : values()) {
+                if (kind.type == type) {
+                    return kind;
+                }
+            }
+            return OBJECT;
+        }
+    }
+
+    private static class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(this.bytes);
+        private final HashMap<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) throws IOException {
+            var key = "U" + value;
+            var index = this.entries.get(key);
+            if (index == null) {
+                this.out.writeByte(1);
+                this.out.writeUTF(value);
+                index = add(key);
+            }
+            return index;
+        }
+
+        int clazz(String name) throws IOException {
+            return reference(7, "C" + name, utf8(name), -1);
+        }
+
+        int string(String value) throws IOException {
+            return reference(8, "S" + value, utf8(value), -1);
+        }
+
+        int field(String owner, String name, String descriptor) throws IOException {
+            return member(9, owner, name, descriptor);
+        }
+
+        int method(String owner, String name, String descriptor) throws IOException {
+            return member(10, owner, name, descriptor);
+        }
+
+        int interfaceMethod(String owner, String name, String descriptor) throws IOException {
+            return member(11, owner, name, descriptor);
+        }
+
+        void writeTo(DataOutputStream classFile) throws IOException {
+            classFile.writeShort(this.count);
+            this.bytes.writeTo(classFile);
+        }
+
+        private int member(int tag, String owner, String name, String descriptor) throws IOException {
+            var clazz = clazz(owner);
+            var nameAndType = reference(12, "N" + name + ":" + descriptor, utf8(name), utf8(descriptor));
+            return reference(tag, tag + owner + "." + name + ":" + descriptor, clazz, nameAndType);
+        }
+
+        // an entry made of one or two indexes of other entries
+        private int reference(int tag, String key, int first, int second) throws IOException {
+            var index = this.entries.get(key);
+            if (index == null) {
+                this.out.writeByte(tag);
+                this.out.writeShort(first);
+                if (second >= 0) {
+                    this.out.writeShort(second);
+                }
+                index = add(key);
+            }
+            return index;
+        }
+
+        private int add(String key) {
+            if (this.count == 0xffff) {
+                throw new IllegalStateException("constant pool overflow");
+            }
+            this.entries.put(key, this.count);
+            return this.count++;
+        }
+    }
+
+    private static class Code {
+        private final ConstantPool pool;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(this.bytes);
+        private final int codeName;
+
+        Code(ConstantPool pool) throws IOException {
+            this.pool = pool;
+            this.codeName = pool.utf8("Code");
+        }
+
+        void op(int opcode) throws IOException {
+            this.out.writeByte(opcode);
+        }
+
+        void opIndex(int opcode, int index) throws IOException {
+            this.out.writeByte(opcode);
+            this.out.writeShort(index);
+        }
+
+        void invokeInterface(int method, int argumentSlots) throws IOException {
+            this.out.writeByte(0xb9);
+            this.out.writeShort(method);
+            this.out.writeByte(argumentSlots);
+            this.out.writeByte(0);
+        }
+
+        // writes the method with the instructions collected so far and starts over
+        void writeMethod(DataOutputStream methods, int flags, String name, String descriptor,
+                         int maxStack, int maxLocals) throws IOException {
+            if (this.bytes.size() > 0xffff) {
+                throw new IllegalStateException("method " + name + " is too large");
+            }
+            methods.writeShort(flags);
+            methods.writeShort(this.pool.utf8(name));
+            methods.writeShort(this.pool.utf8(descriptor));
+            methods.writeShort(1);
+            methods.writeShort(this.codeName);
+            methods.writeInt(12 + this.bytes.size());
+            methods.writeShort(maxStack);
+            methods.writeShort(maxLocals);
+            methods.writeInt(this.bytes.size());
+            this.bytes.writeTo(methods);
+            methods.writeShort(0);
+            methods.writeShort(0);
+            this.bytes.reset();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package xmlSaver;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+class XmlClassDescriptor {
+    static final String GENERATED_CODEC_SUFFIX = "_XmlCodec";
+
+    private static final ClassValue<XmlClassDescriptor> descriptors = new ClassValue<>() {
+        @Override
+        protected XmlClassDescriptor computeValue(Class<?> type) {
+            return new XmlClassDescriptor(type, null);
+        }
+    };
+
+    private final Class<?> clazz;
+    private final XmlSerializerRegistry.XmlSerializationStrategy strategy;
+    private final Field[] fields;
+    private final XmlFieldAccessor[] accessors;
+    // open addressed name -> accessor index table, a field hiding one of a superclass chains to it through sameNames
+    private final String[] slotNames;
+    private final int[] slotIndexes;
+    private final int[] sameNames;
+    private final boolean savable;
+    private final boolean strict;
+    private final boolean clone;
+    private final boolean handler;
+    private final XmlGeneratedCodec<Object> generatedCodec;
+    private volatile Constructor<?> constructor;
+    private XmlGeneratedCodec<Object> runtimeCodec;
+    private volatile boolean runtimeCodecResolved;
+
+    XmlClassDescriptor(Class<?> clazz, XmlSerializerRegistry.XmlSerializationStrategy strategy) {
+        this.clazz = clazz;
+        this.strategy = strategy;
+        var annotation = clazz.getAnnotation(XML.class);
+        this.generatedCodec = strategy == null && annotation != null ? findGeneratedCodec(clazz) : null;
+        this.savable = annotation != null || strategy != null;
+        if (this.generatedCodec != null) {
+            this.strict = this.generatedCodec.isStrict();
+            this.clone = this.generatedCodec.isClone();
+        } else {
+            this.strict = annotation == null || annotation.isStrict();
+            this.clone = annotation != null && annotation.isClone();
+        }
+        this.handler = ISerializerHandler.class.isAssignableFrom(clazz);
+        if (strategy != null) {
+            this.fields = strategy.getFields();
+        } else if (annotation != null) {
+            this.fields = Arrays.stream(collectFields(clazz)).
+                filter(x -> x.isAnnotationPresent(XML.class)).
+                toArray(Field[]::new);
+        } else {
+            this.fields = new Field[0];
+        }
+        this.accessors = Arrays.stream(this.fields).
+            map(XmlFieldAccessor::new).
+            toArray(XmlFieldAccessor[]::new);
+        var capacity = Integer.highestOneBit(Math.max(1, this.accessors.length * 2 - 1)) << 1;
+        this.slotNames = new String[capacity];
+        this.slotIndexes = new int[capacity];
+        this.sameNames = new int[this.accessors.length];
+        for (int i = 0; i < this.accessors.length; i++) {
+            this.sameNames[i] = -1;
+            var index = indexOf(this.accessors[i].getName());
+            if (index < 0) {
+                var slot = findSlot(this.accessors[i].getName());
+                this.slotNames[slot] = this.accessors[i].getName();
+                this.slotIndexes[slot] = i;
+                continue;
+            }
+            while (this.sameNames[index] >= 0) {
+                index = this.sameNames[index];
+            }
+            this.sameNames[index] = i;
+        }
+    }
+
+    static XmlClassDescriptor of(Class<?> clazz, XmlSerializerRegistry registry) {
+        if (registry != null) {
+            var strategy = registry.getClassStrategy(clazz);
+            if (strategy != null) {
+                return strategy.getDescriptor(clazz);
+            }
+        }
+        return descriptors.get(clazz);
+    }
+
+    Object newInstance() throws ReflectiveOperationException {
+        if (this.strategy != null) {
+            return this.strategy.getGenerator().get();
+        }
+        var ctor = this.constructor;
+        if (ctor == null) {
+            ctor = this.clazz.getConstructor();
+            this.constructor = ctor;
+        }
+        return ctor.newInstance();
+    }
+
+    Class<?> getType() {
+        return clazz;
+    }
+
+    Field[] getFields() {
+        return fields;
+    }
+
+    XmlFieldAccessor[] getAccessors() {
+        return accessors;
+    }
+
+    // index of the first accessor for an element name, -1 if no field has that name
+    int indexOf(String name) {
+        var slot = findSlot(name);
+        return this.slotNames[slot] != null ? this.slotIndexes[slot] : -1;
+    }
+
+    // the next accessor sharing the name of the given one, -1 after the last
+    int nextWithSameName(int index) {
+        return this.sameNames[index];
+    }
+
+    XmlGeneratedCodec<Object> getGeneratedCodec() {
+        return generatedCodec;
+    }
+
+    // spun the first time it is asked for, null when the class keeps the reflective path
+    XmlGeneratedCodec<Object> getRuntimeCodec() {
+        if (!this.runtimeCodecResolved) {
+            synchronized (this) {
+                if (!this.runtimeCodecResolved) {
+                    this.runtimeCodec = XmlClassCodec.create(this);
+                    this.runtimeCodecResolved = true;
+                }
+            }
+        }
+        return runtimeCodec;
+    }
+
+    Supplier<?> getGenerator() {
+        return strategy != null ? strategy.getGenerator() : null;
+    }
+
+    boolean isSavable() {
+        return savable;
+    }
+
+    boolean isStrict() {
+        return strict;
+    }
+
+    boolean isClone() {
+        return clone;
+    }
+
+    boolean isHandler() {
+        return handler;
+    }
+
+    private int findSlot(String name) {
+        var mask = this.slotNames.length - 1;
+        var hash = name.hashCode();
+        var slot = (hash ^ (hash >>> 16)) & mask;
+        // field names and parsed element names are interned, comparing them rarely gets past the identity check
+        for (var slotName = this.slotNames[slot]; slotName != null; slotName = this.slotNames[slot]) {
+            if (slotName == name || slotName.equals(name)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // a codec named after its class handles instances of exactly that class, so it may take them as Object
+    @SuppressWarnings("unchecked")
+    private static XmlGeneratedCodec<Object> findGeneratedCodec(Class<?> clazz) {
+        // codecs are emitted next to the annotated class by the xmlSaver-processor annotation processor
+        try {
+            var codecClazz = Class.forName(clazz.getName() + GENERATED_CODEC_SUFFIX, true, clazz.getClassLoader());
+            if (!XmlGeneratedCodec.class.isAssignableFrom(codecClazz)) {
+                return null;
+            }
+            return (XmlGeneratedCodec<Object>) codecClazz.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    static Field[] collectFields(Class<?> clazz) {
+        var fields = new ArrayList<Field>();
+        collectFields(clazz, fields);
+        return fields.toArray(Field[]::new);
+    }
+
+    private static void collectFields(Class<?> clazz, ArrayList<Field> fields) {
+        if (clazz == Object.class || clazz == null) {
+            return;
+        }
+        fields.addAll(Arrays.asList(clazz.getDeclaredFields()));
+        collectFields(clazz.getSuperclass(), fields);
+    }
+}
@@ -0,0 +1,28 @@
+package xmlSaver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// totals per class, committed once per document right after its save or load event
+@Name("xmlSaver.ClassTotals")
+@Label("XML Class Totals")
+@Category("xmlSaver")
+@StackTrace(false)
+class XmlClassEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Class")
+    String className;
+
+    @Label("Objects")
+    long count;
+
+    @Label("Own Time")
+    @Timespan
+    long time;
+}
@@ -0,0 +1,116 @@
+package xmlSaver;
+
+import org.apache.commons.lang3.ClassUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// deep copies for @XML(isClone = true) back-references, walking the same fields save and load do
+class XmlCloner {
+    private static final ClassValue<Constructor<?>> constructors = new ClassValue<>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            try {
+                return type.getConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(type + " has no public no-arg constructor", e);
+            }
+        }
+    };
+
+    private final XmlSerializerRegistry registry;
+    // every source object is copied once, shared references and cycles of the source are kept in the copy
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+    XmlCloner(XmlSerializerRegistry registry) {
+        this.registry = registry;
+    }
+
+    Object copy(Object source) {
+        if (source == null) {
+            return null;
+        }
+        var clazz = source.getClass();
+        // immutable values are shared, like the loader shares nothing it cannot rebuild
+        if (ClassUtils.isPrimitiveOrWrapper(clazz) || clazz == String.class || clazz.isEnum()) {
+            return source;
+        }
+        var copy = this.copies.get(source);
+        if (copy != null) {
+            return copy;
+        }
+        try {
+            if (clazz.isArray()) {
+                return copyArray(source);
+            } else if (source instanceof Collection) {
+                return copyCollection((Collection<?>) source);
+            } else if (source instanceof Map) {
+                return copyMap((Map<?, ?>) source);
+            }
+            return copyObject(source);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(clazz + " cannot be cloned", e);
+        }
+    }
+
+    private Object copyArray(Object source) {
+        var length = Array.getLength(source);
+        var copy = Array.newInstance(source.getClass().getComponentType(), length);
+        this.copies.put(source, copy);
+        if (source.getClass().getComponentType().isPrimitive()) {
+            System.arraycopy(source, 0, copy, 0, length);
+            return copy;
+        }
+        var sourceItems = (Object[]) source;
+        var items = (Object[]) copy;
+        for (int i = 0; i < length; i++) {
+            items[i] = copy(sourceItems[i]);
+        }
+        return copy;
+    }
+
+    private Object copyCollection(Collection<?> source) throws ReflectiveOperationException {
+        @SuppressWarnings("unchecked")
+        var copy = (Collection<Object>) constructors.get(source.getClass()).newInstance();
+        this.copies.put(source, copy);
+        for (Object item : source) {
+            copy.add(copy(item));
+        }
+        return copy;
+    }
+
+    private Object copyMap(Map<?, ?> source) throws ReflectiveOperationException {
+        @SuppressWarnings("unchecked")
+        var copy = (Map<Object, Object>) constructors.get(source.getClass()).newInstance();
+        this.copies.put(source, copy);
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            copy.put(copy(entry.getKey()), copy(entry.getValue()));
+        }
+        return copy;
+    }
+
+    private Object copyObject(Object source) throws ReflectiveOperationException {
+        var descriptor = XmlClassDescriptor.of(source.getClass(), this.registry);
+        if (!descriptor.isSavable()) {
+            throw new IllegalStateException(source.getClass() + " isn`t annotated with @xml.XML");
+        }
+        var generatedCodec = descriptor.getGeneratedCodec();
+        var copy = generatedCodec != null ? generatedCodec.newInstance() : descriptor.newInstance();
+        this.copies.put(source, copy);
+        for (XmlFieldAccessor accessor : descriptor.getAccessors()) {
+            // static fields belong to the class, the copy already sees them
+            if (!Modifier.isStatic(accessor.getField().getModifiers())) {
+                accessor.set(copy, copy(accessor.get(source)));
+            }
+        }
+        // the copy is completed the way a loaded object is, state derived from the fields is rebuilt by the handler
+        if (descriptor.isHandler()) {
+            ((ISerializerHandler) copy).handleSerializer();
+        }
+        return copy;
+    }
+}
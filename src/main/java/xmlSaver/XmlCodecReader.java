@@ -0,0 +1,23 @@
+package xmlSaver;
+
+public interface XmlCodecReader {
+    Object readObject(String name);
+
+    String readString(String name);
+
+    boolean readBoolean(String name);
+
+    byte readByte(String name);
+
+    short readShort(String name);
+
+    char readChar(String name);
+
+    int readInt(String name);
+
+    long readLong(String name);
+
+    float readFloat(String name);
+
+    double readDouble(String name);
+}
@@ -0,0 +1,23 @@
+package xmlSaver;
+
+public interface XmlCodecWriter {
+    void writeObject(String name, Object value);
+
+    void writeString(String name, String value);
+
+    void writeBoolean(String name, boolean value);
+
+    void writeByte(String name, byte value);
+
+    void writeShort(String name, short value);
+
+    void writeChar(String name, char value);
+
+    void writeInt(String name, int value);
+
+    void writeLong(String name, long value);
+
+    void writeFloat(String name, float value);
+
+    void writeDouble(String name, double value);
+}
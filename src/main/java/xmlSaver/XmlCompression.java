@@ -0,0 +1,123 @@
+package xmlSaver;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+public enum XmlCompression {
+    NONE,
+    GZIP,
+    DEFLATE;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    DeflaterOutputStream compress(OutputStream stream, int level) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GzipOutput(stream, level);
+            case DEFLATE:
+                return new DeflateOutput(stream, level);
+            default:
+                throw new IllegalStateException(this + " doesn`t compress");
+        }
+    }
+
+    static InputStream decompress(InputStream stream) throws IOException {
+        var input = stream.markSupported() ? stream : new BufferedInputStream(stream, BUFFER_SIZE);
+        input.mark(2);
+        var first = input.read();
+        var second = input.read();
+        input.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new GzipInput(input);
+        }
+        // zlib header: deflate method, window size in the high nibble and a check over both bytes
+        if ((first & 0x0f) == 8 && (first >> 4) <= 7 && second >= 0 && ((first << 8) | second) % 31 == 0) {
+            return new DeflateInput(input);
+        }
+        return input;
+    }
+
+    // streams handed in by the caller are never closed, so the native zlib memory is freed here once the
+    // document is finished instead of waiting for the deflater or inflater to be collected
+    static void release(Closeable stream) {
+        if (stream instanceof Releasable) {
+            ((Releasable) stream).release();
+        }
+    }
+
+    private interface Releasable {
+        void release();
+    }
+
+    private static class GzipOutput extends GZIPOutputStream implements Releasable {
+        GzipOutput(OutputStream stream, int level) throws IOException {
+            super(stream, BUFFER_SIZE);
+            this.def.setLevel(level);
+        }
+
+        @Override
+        public void release() {
+            this.def.end();
+        }
+    }
+
+    private static class DeflateOutput extends DeflaterOutputStream implements Releasable {
+        DeflateOutput(OutputStream stream, int level) {
+            super(stream, new Deflater(level), BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public void release() {
+            this.def.end();
+        }
+    }
+
+    private static class GzipInput extends GZIPInputStream implements Releasable {
+        GzipInput(InputStream stream) throws IOException {
+            super(stream, BUFFER_SIZE);
+        }
+
+        @Override
+        public void release() {
+            this.inf.end();
+        }
+    }
+
+    private static class DeflateInput extends InflaterInputStream implements Releasable {
+        DeflateInput(InputStream stream) {
+            super(stream, new Inflater(), BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public void release() {
+            this.inf.end();
+        }
+    }
+}
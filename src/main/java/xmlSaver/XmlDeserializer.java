@@ -1,42 +1,253 @@
 package xmlSaver;
 
 import org.apache.commons.lang3.ClassUtils;
-import org.apache.commons.lang3.SerializationUtils;
 
-import java.io.Serializable;
-import java.lang.invoke.MethodHandles;
+import java.io.InputStream;
+import java.io.Reader;
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 
 public class XmlDeserializer {
     private static final Map<String,Class> builtInMap = new HashMap<>();
+    private static final int RETAINED_TRACKING = 1 << 12;
 
-    private final HashMap<String, Object> trackingObjects = new HashMap<>();
+    private static final ClassValue<Class<?>> arrayClasses = new ClassValue<>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            return Array.newInstance(type, 0).getClass();
+        }
+    };
+
+    private Map<String, Object> trackingObjects;
+    private Map<String, Class<?>> resolvedClasses;
+    private Class<?>[] classTable;
     private XmlSerializerRegistry registry;
+    private boolean generatedCodecs;
+    private ForkJoinPool parallelPool;
+    private int parallelThreshold;
+    private XmlElementPolicy unknownElements;
+    private XmlElementPolicy missingElements;
+    // lazy documents materialize definitions that were not loaded yet when a reference to them is met
+    private Function<String, Object> unresolvedReferences;
+    private XmlMetrics metrics;
+    private XmlLoadEvent event;
+    private XmlMetricsListener metricsListener;
+    // instances built from options keep one run per thread, its tables, class cache and buffers are reused
+    private XmlDeserializerOptions options;
+    private ThreadLocal<XmlDeserializer> runs;
+    private XmlScratch scratch;
+    private boolean running;
 
-    public static Object loadXml(String path) {
-        return new XmlDeserializer().loadXmlInternal(path);
+    private XmlDeserializer() {
+    }
+
+    XmlDeserializer(XmlDeserializerOptions options) {
+        this.options = options;
+        this.runs = ThreadLocal.withInitial(() -> {
+            var run = create(options);
+            run.scratch = new XmlScratch();
+            return run;
+        });
+    }
+
+    public static Object loadXml(String path, XmlDeserializerOptions options) {
+        var deserializer = create(options);
+        return deserializer.loadXmlInternal(deserializer.createReader(new XmlNodeReader(path)).load());
     }
 
     public static Object loadXml(String path, XmlSerializerRegistry registry) {
+        return loadXml(path, new XmlDeserializerOptions().setRegistry(registry));
+    }
+
+    public static Object loadXml(String path) {
+        return loadXml(path, new XmlDeserializerOptions());
+    }
+
+    public static Object loadXml(InputStream stream, XmlDeserializerOptions options) {
+        var deserializer = create(options);
+        return deserializer.loadXmlInternal(deserializer.createReader(new XmlNodeReader()).load(stream));
+    }
+
+    public static Object loadXml(InputStream stream, XmlSerializerRegistry registry) {
+        return loadXml(stream, new XmlDeserializerOptions().setRegistry(registry));
+    }
+
+    public static Object loadXml(InputStream stream) {
+        return loadXml(stream, new XmlDeserializerOptions());
+    }
+
+    public static Object loadXml(Reader reader, XmlDeserializerOptions options) {
+        var deserializer = create(options);
+        return deserializer.loadXmlInternal(deserializer.createReader(new XmlNodeReader()).load(reader));
+    }
+
+    public static Object loadXml(Reader reader, XmlSerializerRegistry registry) {
+        return loadXml(reader, new XmlDeserializerOptions().setRegistry(registry));
+    }
+
+    public static Object loadXml(Reader reader) {
+        return loadXml(reader, new XmlDeserializerOptions());
+    }
+
+    public static Object loadXml(ReadableByteChannel channel, XmlDeserializerOptions options) {
+        return loadXml(Channels.newInputStream(channel), options);
+    }
+
+    public static Object loadXml(ReadableByteChannel channel, XmlSerializerRegistry registry) {
+        return loadXml(channel, new XmlDeserializerOptions().setRegistry(registry));
+    }
+
+    public static Object loadXml(ReadableByteChannel channel) {
+        return loadXml(channel, new XmlDeserializerOptions());
+    }
+
+    public static Object loadXml(ByteBuffer buffer, XmlDeserializerOptions options) {
+        return loadXml(new XmlByteBufferInputStream(buffer), options);
+    }
+
+    public static Object loadXml(ByteBuffer buffer, XmlSerializerRegistry registry) {
+        return loadXml(buffer, new XmlDeserializerOptions().setRegistry(registry));
+    }
+
+    public static Object loadXml(ByteBuffer buffer) {
+        return loadXml(buffer, new XmlDeserializerOptions());
+    }
+
+    public Object load(String path) {
+        var run = acquire();
+        try {
+            return run.loadXmlInternal(run.createReader(new XmlNodeReader(path)).load());
+        } finally {
+            run.running = false;
+        }
+    }
+
+    public Object load(InputStream stream) {
+        var run = acquire();
+        try {
+            return run.loadXmlInternal(run.createReader(new XmlNodeReader()).load(stream));
+        } finally {
+            run.running = false;
+        }
+    }
+
+    public Object load(Reader reader) {
+        var run = acquire();
+        try {
+            return run.loadXmlInternal(run.createReader(new XmlNodeReader()).load(reader));
+        } finally {
+            run.running = false;
+        }
+    }
+
+    public Object load(ReadableByteChannel channel) {
+        return load(Channels.newInputStream(channel));
+    }
+
+    public Object load(ByteBuffer buffer) {
+        return load(new XmlByteBufferInputStream(buffer));
+    }
+
+    private XmlDeserializer acquire() {
+        var run = this.runs.get();
+        if (run.running) {
+            // a load started from a handler of another load on this thread cannot share its tables
+            return create(this.options);
+        }
+        run.running = true;
+        run.reset();
+        return run;
+    }
+
+    private void reset() {
+        // a table that grew for one large document is dropped instead of cleared on every later run
+        if (this.trackingObjects.size() > RETAINED_TRACKING) {
+            this.trackingObjects = this.parallelPool != null ? new ConcurrentHashMap<>() : new HashMap<>();
+        } else {
+            this.trackingObjects.clear();
+        }
+        this.classTable = null;
+        this.unresolvedReferences = null;
+        startRun(this.options);
+    }
+
+    private XmlNodeReader createReader(XmlNodeReader reader) {
+        return reader.setMetrics(this.metrics).setScratch(this.scratch);
+    }
+
+    static XmlDeserializer create(XmlDeserializerOptions options) {
         var deserializer = new XmlDeserializer();
-        deserializer.registry = registry;
-        return deserializer.loadXmlInternal(path);
+        deserializer.options = options;
+        deserializer.registry = options.getRegistry();
+        deserializer.generatedCodecs = options.isGeneratedCodecs();
+        deserializer.unknownElements = options.getUnknownElements();
+        deserializer.missingElements = options.getMissingElements();
+        if (options.isParallel()) {
+            deserializer.parallelPool = ForkJoinPool.commonPool();
+            deserializer.parallelThreshold = options.getParallelThreshold();
+            deserializer.trackingObjects = new ConcurrentHashMap<>();
+            deserializer.resolvedClasses = new ConcurrentHashMap<>();
+        } else {
+            deserializer.trackingObjects = new HashMap<>();
+            deserializer.resolvedClasses = new HashMap<>();
+        }
+        deserializer.startRun(options);
+        return deserializer;
+    }
+
+    private void startRun(XmlDeserializerOptions options) {
+        this.metrics = null;
+        this.event = null;
+        // metrics are only collected for a listener or a running flight recording
+        var event = new XmlLoadEvent();
+        if (options.getMetricsListener() != null || event.isEnabled()) {
+            event.begin();
+            this.metrics = new XmlMetrics();
+            this.event = event;
+            this.metricsListener = options.getMetricsListener();
+        }
+    }
+
+    Object loadXmlInternal(XmlNode xmlObject) {
+        loadClassTable(xmlObject);
+        var object = loadAtomic(xmlObject);
+        if (this.metrics != null) {
+            this.metrics.finish(this.trackingObjects.size());
+            this.metrics.commit(this.event);
+            if (this.metricsListener != null) {
+                this.metricsListener.loaded(this.metrics);
+            }
+        }
+        return object;
     }
 
-    private Object loadXmlInternal(String path) {
-        var xmlReader = new XmlNodeReader(path);
-        XmlNode xmlObject = xmlReader.load();
-        return loadAtomic(xmlObject);
+    void loadClassTable(XmlNode root) {
+        if (root.hasAttribute("classes")) {
+            this.classTable = Arrays.stream(root.getAttribute("classes").split(" ")).
+                map(this::resolveClass).
+                toArray(Class<?>[]::new);
+        }
     }
 
-    private Object loadAtomic(XmlNode xmlDescription) {
-        var actualType = xmlDescription.hasAttribute("class") ? getClassInformation(xmlDescription) : null;
+    void setUnresolvedReferences(Function<String, Object> unresolvedReferences) {
+        this.unresolvedReferences = unresolvedReferences;
+    }
+
+    Object loadAtomic(XmlNode xmlDescription) {
+        var actualType = getActualType(xmlDescription);
         if (actualType == null) {
             if (xmlDescription.hasAttribute("objectId")) {
                 return loadObject(null, xmlDescription);
@@ -70,15 +281,10 @@ public class XmlDeserializer {
     }
 
     private Object loadPrimitive(Class<?> clazz, XmlNode xmlDescription) {
-        var value = xmlDescription.getNodeValue();
-        if(Boolean.class == clazz || Boolean.TYPE == clazz) return Boolean.parseBoolean(value);
-        if(Byte.class == clazz || Byte.TYPE == clazz) return Byte.parseByte(value);
-        if(Short.class == clazz || Short.TYPE == clazz) return Short.parseShort(value);
-        if(Integer.class == clazz || Integer.TYPE == clazz) return Integer.parseInt(value);
-        if(Long.class == clazz || Long.TYPE == clazz) return Long.parseLong(value);
-        if(Float.class == clazz || Float.TYPE == clazz) return Float.parseFloat(value);
-        if(Double.class == clazz || Double.TYPE == clazz) return Double.parseDouble(value);
-        return value;
+        if (clazz == String.class) {
+            return xmlDescription.getNodeValue();
+        }
+        return XmlPrimitiveCodec.decode(clazz, xmlDescription);
     }
 
     private Object loadEnum(Class<?> clazz, XmlNode xmlDescription) {
@@ -92,9 +298,27 @@ public class XmlDeserializer {
     }
 
     private Object loadArray(Class<?> clazz, XmlNode xmlDescription) {
+        if (xmlDescription.hasAttribute("encoding")) {
+            // byte arrays are decoded while the document is read
+            if (xmlDescription.getPrimitiveValue() instanceof byte[] && clazz == byte[].class) {
+                return xmlDescription.getPrimitiveValue();
+            }
+            return XmlPrimitiveArrays.decode(
+                clazz.getComponentType(),
+                xmlDescription.getAttribute("encoding"),
+                xmlDescription.getNodeValue()
+            );
+        }
         var items = xmlDescription.getChildNodes("item");
         var c_type = clazz.getComponentType();
         var value = Array.newInstance(c_type, items.length);
+        if (isParallel(items.length)) {
+            var results = loadParallel(items, false);
+            for (int i = 0; i < results.length; i++) {
+                Array.set(value, i, results[i]);
+            }
+            return value;
+        }
         for (int i = 0; i < items.length; i++) {
             Array.set(value, i, loadAtomic(items[i]));
         }
@@ -104,8 +328,15 @@ public class XmlDeserializer {
     private Object loadCollection(Class<?> clazz, XmlNode xmlDescription) {
         try {
             var value = (Collection)clazz.getConstructor().newInstance();
+            var items = xmlDescription.getChildNodes("item");
+            if (isParallel(items.length)) {
+                @SuppressWarnings("unchecked")
+                var target = (Collection<Object>) value;
+                target.addAll(Arrays.asList(loadParallel(items, false)));
+                return value;
+            }
             //noinspection unchecked
-            Arrays.stream(xmlDescription.getChildNodes("item")).
+            Arrays.stream(items).
                 forEach(x -> value.add(loadAtomic(x)));
             return value;
         } catch (Exception e) {
@@ -116,7 +347,17 @@ public class XmlDeserializer {
     private Object loadMap(Class<?> clazz, XmlNode xmlDescription) {
         try {
             var value = (Map)clazz.getConstructor().newInstance();
-            Arrays.stream(xmlDescription.getChildNodes("item")).
+            var items = xmlDescription.getChildNodes("item");
+            if (isParallel(items.length)) {
+                var results = loadParallel(items, true);
+                @SuppressWarnings("unchecked")
+                var target = (Map<Object, Object>) value;
+                for (int i = 0; i < results.length; i += 2) {
+                    target.put(results[i], results[i + 1]);
+                }
+                return value;
+            }
+            Arrays.stream(items).
                 forEach(x -> {
                     var key = x.getChildNode("key");
                     var val = x.getChildNode("value");
@@ -132,50 +373,261 @@ public class XmlDeserializer {
         }
     }
 
+    private boolean isParallel(int size) {
+        return this.parallelPool != null && size >= this.parallelThreshold;
+    }
+
+    private Object[] loadParallel(XmlNode[] items, boolean entries) {
+        var chunkSize = Math.max(1, items.length / (this.parallelPool.getParallelism() * 4));
+        var tasks = new XmlLoadTask[(items.length + chunkSize - 1) / chunkSize];
+        var results = new Object[entries ? items.length * 2 : items.length];
+        // a reference always follows its definition, so a chunk only waits for earlier chunks defining what it uses
+        var definedIn = new HashMap<String, Integer>();
+        for (int i = 0; i < tasks.length; i++) {
+            var from = i * chunkSize;
+            var to = Math.min(from + chunkSize, items.length);
+            var references = new HashSet<String>();
+            for (int j = from; j < to; j++) {
+                collectObjectIds(items[j], i, definedIn, references);
+            }
+            var dependencies = new BitSet();
+            for (String reference : references) {
+                var chunk = definedIn.get(reference);
+                if (chunk != null && chunk != i) {
+                    dependencies.set(chunk);
+                }
+            }
+            tasks[i] = new XmlLoadTask(this, items, entries, from, to, dependencies, tasks, results);
+        }
+        this.parallelPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        return results;
+    }
+
+    private static void collectObjectIds(
+        XmlNode xmlDescription,
+        int chunk,
+        HashMap<String, Integer> definedIn,
+        HashSet<String> references
+    ) {
+        var objectId = xmlDescription.getAttribute("objectId");
+        if (objectId != null) {
+            if (xmlDescription.hasAttribute("class") || xmlDescription.hasAttribute("type")) {
+                definedIn.put(objectId, chunk);
+            } else {
+                references.add(objectId);
+            }
+        }
+        for (XmlNode childNode : xmlDescription.getChildNodes()) {
+            collectObjectIds(childNode, chunk, definedIn, references);
+        }
+    }
+
+    void loadChunk(XmlNode[] items, int from, int to, boolean entries, Object[] results) {
+        for (int i = from; i < to; i++) {
+            if (entries) {
+                results[i * 2] = loadAtomic(items[i].getChildNode("key"));
+                results[i * 2 + 1] = loadAtomic(items[i].getChildNode("value"));
+            } else {
+                results[i] = loadAtomic(items[i]);
+            }
+        }
+    }
+
     private Object loadObject(Class<?> clazz, XmlNode xmlDescription) {
         var identity = this.getObjIdentity(xmlDescription);
+        if (clazz == null && this.unresolvedReferences != null && !this.isTracking(identity)) {
+            this.unresolvedReferences.apply(identity);
+        }
+        if (this.metrics != null) {
+            this.metrics.addLookup(this.isTracking(identity));
+        }
         if (this.isTracking(identity)) {
             var trackingObj = this.getTrackingObject(identity);
-            if (trackingObj.getClass().getAnnotation(XML.class).isClone() && trackingObj instanceof Serializable) {
-                return SerializationUtils.clone((Serializable)trackingObj);
+            if (XmlClassDescriptor.of(trackingObj.getClass(), this.registry).isClone()) {
+                return new XmlCloner(this.registry).copy(trackingObj);
             }
-            return this.getTrackingObject(identity);
+            return trackingObj;
         }
 
-        XmlSerializerRegistry.XmlSerializationStrategy strategy = null;
-        if (this.registry != null) {
-            strategy = this.registry.getClassStrategy(clazz);
-        }
-        if (!clazz.isAnnotationPresent(XML.class) && strategy == null) {
+        var descriptor = XmlClassDescriptor.of(clazz, this.registry);
+        if (!descriptor.isSavable()) {
             throw new IllegalStateException(clazz + " isn`t annotated with @xml.XML");
         }
 
         try {
-            var object = strategy != null ? strategy.getGenerator().get() : clazz.getConstructor().newInstance();
-            this.trackObject(identity, object); // <- !
-            var loadableFields = strategy != null ? strategy.getFields() : Arrays.stream(XmlSerializer.collectFields(clazz)).
-                filter(x -> x.isAnnotationPresent(XML.class)).
-                toArray(Field[]::new);
-            Arrays.stream(loadableFields).forEach(x -> loadField(object, x, xmlDescription));
-            if (object instanceof ISerializerHandler) {
-                ((ISerializerHandler)object).handleSerializer();
+            if (this.metrics == null) {
+                var object = newInstance(descriptor);
+                this.trackObject(identity, object); // <- !
+                loadFields(object, descriptor, xmlDescription);
+                return object;
             }
+            this.metrics.countObject(clazz);
+            var start = System.nanoTime();
+            var outer = this.metrics.enterObject();
+            var object = newInstance(descriptor);
+            this.trackObject(identity, object); // <- !
+            loadFields(object, descriptor, xmlDescription);
+            this.metrics.exitObject(clazz, start, outer);
             return object;
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
     }
 
-    private void loadField(Object target, Field field, XmlNode parent) {
-        var xmlDescription = parent.getChildNode(field.getName());
+    private Object newInstance(XmlClassDescriptor descriptor) throws Exception {
+        var generatedCodec = getCodec(descriptor);
+        if (generatedCodec != null) {
+            return generatedCodec.newInstance();
+        }
+        if (this.metrics == null) {
+            return descriptor.newInstance();
+        }
+        var start = System.nanoTime();
+        var object = descriptor.newInstance();
+        this.metrics.addReflection(start);
+        return object;
+    }
+
+    private void loadFields(Object object, XmlClassDescriptor descriptor, XmlNode xmlDescription) throws Exception {
+        var generatedCodec = getCodec(descriptor);
+        // generated codecs read their fields by name, a document that left the field order binds through the
+        // accessors, where unknown and missing elements follow the options' policies
+        if (generatedCodec != null && isInFieldOrder(descriptor, xmlDescription)) {
+            generatedCodec.load(object, new CodecReader(xmlDescription));
+        } else {
+            bindFields(object, descriptor, xmlDescription);
+        }
+        if (descriptor.isHandler()) {
+            var start = this.metrics != null ? System.nanoTime() : 0;
+            ((ISerializerHandler)object).handleSerializer();
+            if (this.metrics != null) {
+                this.metrics.addHandler(start);
+            }
+        }
+    }
+
+    private XmlGeneratedCodec<Object> getCodec(XmlClassDescriptor descriptor) {
+        var generatedCodec = descriptor.getGeneratedCodec();
+        return generatedCodec == null && this.generatedCodecs ? descriptor.getRuntimeCodec() : generatedCodec;
+    }
+
+    // records of a journal delta overwrite the objects loaded so far, records of new objects may come in any order
+    Object replay(XmlNode delta, Object root) {
+        var records = new LinkedHashMap<String, XmlNode>();
+        for (XmlNode record : delta.getChildNodes("object")) {
+            records.put(getObjIdentity(record), record);
+        }
+        var previous = this.unresolvedReferences;
+        this.unresolvedReferences = objectId -> {
+            var record = records.remove(objectId);
+            if (record == null) {
+                throw new IllegalStateException("journal references unknown object " + objectId);
+            }
+            return loadAtomic(record);
+        };
+        try {
+            while (!records.isEmpty()) {
+                var iterator = records.values().iterator();
+                var record = iterator.next();
+                iterator.remove();
+                var identity = getObjIdentity(record);
+                if (!this.isTracking(identity)) {
+                    loadAtomic(record);
+                    continue;
+                }
+                var object = this.getTrackingObject(identity);
+                loadFields(object, XmlClassDescriptor.of(object.getClass(), this.registry), record);
+            }
+            var rootNodes = delta.getChildNodes("root");
+            return rootNodes.length > 0 ? loadAtomic(rootNodes[0]) : root;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            this.unresolvedReferences = previous;
+        }
+    }
+
+    Map<String, Object> getTrackingObjects() {
+        return this.trackingObjects;
+    }
+
+    // elements are bound in document order through the descriptor's name table, one pass whatever the field count
+    private void bindFields(Object object, XmlClassDescriptor descriptor, XmlNode xmlDescription) {
+        var accessors = descriptor.getAccessors();
+        // elements are saved in field order, nothing needs to be remembered until one comes out of that order
+        var next = 0;
+        boolean[] bound = null;
+        for (int i = 0; i < xmlDescription.getChildCount(); i++) {
+            var child = xmlDescription.getChildNode(i);
+            var name = child.getNodeName();
+            int index;
+            if (bound == null && next < accessors.length && isSameName(accessors[next].getName(), name)) {
+                index = next++;
+            } else {
+                if (bound == null) {
+                    bound = new boolean[accessors.length];
+                    Arrays.fill(bound, 0, next, true);
+                }
+                index = descriptor.indexOf(name);
+                while (index >= 0 && bound[index]) {
+                    index = descriptor.nextWithSameName(index);
+                }
+                if (index < 0) {
+                    if (this.unknownElements == XmlElementPolicy.FAIL) {
+                        throw new IllegalStateException("element <" + name + "> matches no field of " + descriptor.getType());
+                    }
+                    continue;
+                }
+                bound[index] = true;
+            }
+            loadField(object, accessors[index], child);
+        }
+        if (bound == null && next == accessors.length || this.missingElements == XmlElementPolicy.SKIP) {
+            return;
+        }
+        for (int i = 0; i < accessors.length; i++) {
+            if (bound != null ? bound[i] : i < next) {
+                continue;
+            }
+            if (this.missingElements == XmlElementPolicy.FAIL) {
+                throw new IllegalStateException("field " + accessors[i].getField() + " has no element");
+            }
+            accessors[i].set(object, accessors[i].getDefaultValue());
+        }
+    }
+
+    private static boolean isInFieldOrder(XmlClassDescriptor descriptor, XmlNode xmlDescription) {
+        var accessors = descriptor.getAccessors();
+        if (xmlDescription.getChildCount() != accessors.length) {
+            return false;
+        }
+        for (int i = 0; i < accessors.length; i++) {
+            if (!isSameName(accessors[i].getName(), xmlDescription.getChildNode(i).getNodeName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameName(String fieldName, String nodeName) {
+        return fieldName == nodeName || fieldName.equals(nodeName);
+    }
+
+    private void loadField(Object target, XmlFieldAccessor accessor, XmlNode xmlDescription) {
         var fieldValue = loadAtomic(xmlDescription);
-        setFieldValue(target, fieldValue, field);
+        if (this.metrics == null) {
+            accessor.set(target, fieldValue);
+            return;
+        }
+        var start = System.nanoTime();
+        accessor.set(target, fieldValue);
+        this.metrics.addReflection(start);
     }
 
     private void trackObject(String objectId, Object object) {
-        if (!this.isTracking(objectId)) {
-            this.trackingObjects.put(objectId, object);
-        }
+        this.trackingObjects.putIfAbsent(objectId, object);
     }
 
     private boolean isTracking(String objectId) {
@@ -190,17 +642,45 @@ public class XmlDeserializer {
         return xmlDescription.getAttribute("objectId");
     }
 
-    private static Class<?> getClassInformation(XmlNode xmlDescription) {
-        try {
-            var clazzName = xmlDescription.getAttribute("class");
-            var clazzType = builtInMap.containsKey(clazzName) ? builtInMap.get(clazzName) : Class.forName(clazzName);
-            return obtainArrayClass(clazzType,
-                xmlDescription.hasAttribute("dimension") ?
-                    Integer.parseInt(xmlDescription.getAttribute("dimension")) :
-                    0
-            );
-        } catch (ClassNotFoundException e) {
-            throw new IllegalStateException(e);
+    Class<?> getActualType(XmlNode xmlDescription) {
+        return xmlDescription.hasAttribute("class") || xmlDescription.hasAttribute("type") ?
+            getClassInformation(xmlDescription) :
+            null;
+    }
+
+    private Class<?> getClassInformation(XmlNode xmlDescription) {
+        var clazzType = xmlDescription.hasAttribute("type") ?
+            this.classTable[Integer.parseInt(xmlDescription.getAttribute("type"))] :
+            resolveClass(xmlDescription.getAttribute("class"));
+        return obtainArrayClass(clazzType,
+            xmlDescription.hasAttribute("dimension") ?
+                Integer.parseInt(xmlDescription.getAttribute("dimension")) :
+                0
+        );
+    }
+
+    private Class<?> resolveClass(String clazzName) {
+        var clazzType = this.resolvedClasses.get(clazzName);
+        if (clazzType == null) {
+            clazzType = builtInMap.containsKey(clazzName) ? builtInMap.get(clazzName) : loadClass(clazzName);
+            this.resolvedClasses.put(clazzName, clazzType);
+        }
+        return clazzType;
+    }
+
+    private static Class<?> loadClass(String clazzName) {
+        // documents carry canonical names, nested classes have to be looked up by their binary name
+        var binaryName = new StringBuilder(clazzName);
+        while (true) {
+            try {
+                return Class.forName(binaryName.toString());
+            } catch (ClassNotFoundException e) {
+                var separator = binaryName.lastIndexOf(".");
+                if (separator < 0) {
+                    throw new IllegalStateException(new ClassNotFoundException(clazzName));
+                }
+                binaryName.setCharAt(separator, '$');
+            }
         }
     }
 
@@ -212,27 +692,113 @@ public class XmlDeserializer {
         if (dimension < 1) {
             return c_type;
         } else {
-            return obtainArrayClass(Array.newInstance(c_type, 0).getClass(), dimension - 1);
+            return obtainArrayClass(arrayClasses.get(c_type), dimension - 1);
         }
     }
 
-    private static synchronized void setFieldValue(Object target, Object value, Field field) {
-        try {
-            var oldAccessibleState = field.canAccess(target);
-            var oldModifiers = field.getModifiers();
-            var lookup = MethodHandles.privateLookupIn(Field.class, MethodHandles.lookup());
-            var modifiers = lookup.findVarHandle(Field.class, "modifiers", int.class);
-            //var modifiers = Field.class.getDeclaredField("modifiers");
-
-            //modifiers.setAccessible(true);
-            modifiers.set(field, oldModifiers & ~Modifier.FINAL);
-            field.setAccessible(true);
-            field.set(target, value);
-            field.setAccessible(oldAccessibleState);
-            modifiers.set(field, oldModifiers);
-            //modifiers.setAccessible(false);
-        } catch (Exception e) {
-            throw new IllegalStateException("wtf");
+    private class CodecReader implements XmlCodecReader {
+        private final XmlNode xmlDescription;
+
+        CodecReader(XmlNode xmlDescription) {
+            this.xmlDescription = xmlDescription;
+        }
+
+        @Override
+        public Object readObject(String name) {
+            return loadAtomic(this.xmlDescription.getChildNode(name));
+        }
+
+        @Override
+        public String readString(String name) {
+            return (String) readObject(name);
+        }
+
+        @Override
+        public boolean readBoolean(String name) {
+            var node = this.xmlDescription.getChildNode(name);
+            if (node.getPrimitiveValue() instanceof Boolean) {
+                return (Boolean) node.getPrimitiveValue();
+            }
+            return getActualType(node) == Boolean.class ?
+                (Boolean) XmlPrimitiveCodec.decode(Boolean.class, node.getNodeValue()) :
+                (Boolean) loadAtomic(node);
+        }
+
+        @Override
+        public byte readByte(String name) {
+            var node = this.xmlDescription.getChildNode(name);
+            if (node.getPrimitiveValue() instanceof Byte) {
+                return (Byte) node.getPrimitiveValue();
+            }
+            return getActualType(node) == Byte.class ?
+                (Byte) XmlPrimitiveCodec.decode(Byte.class, node.getNodeValue()) :
+                (Byte) loadAtomic(node);
+        }
+
+        @Override
+        public short readShort(String name) {
+            var node = this.xmlDescription.getChildNode(name);
+            if (node.getPrimitiveValue() instanceof Short) {
+                return (Short) node.getPrimitiveValue();
+            }
+            return getActualType(node) == Short.class ?
+                (Short) XmlPrimitiveCodec.decode(Short.class, node.getNodeValue()) :
+                (Short) loadAtomic(node);
+        }
+
+        @Override
+        public char readChar(String name) {
+            var node = this.xmlDescription.getChildNode(name);
+            if (node.getPrimitiveValue() instanceof Character) {
+                return (Character) node.getPrimitiveValue();
+            }
+            return getActualType(node) == Character.class ?
+                XmlPrimitiveCodec.parseChar(node.getNodeValue()) :
+                (Character) loadAtomic(node);
+        }
+
+        @Override
+        public int readInt(String name) {
+            var node = this.xmlDescription.getChildNode(name);
+            if (node.getPrimitiveValue() instanceof Integer) {
+                return (Integer) node.getPrimitiveValue();
+            }
+            return getActualType(node) == Integer.class ?
+                (Integer) XmlPrimitiveCodec.decode(Integer.class, node.getNodeValue()) :
+                (Integer) loadAtomic(node);
+        }
+
+        @Override
+        public long readLong(String name) {
+            var node = this.xmlDescription.getChildNode(name);
+            if (node.getPrimitiveValue() instanceof Long) {
+                return (Long) node.getPrimitiveValue();
+            }
+            return getActualType(node) == Long.class ?
+                (Long) XmlPrimitiveCodec.decode(Long.class, node.getNodeValue()) :
+                (Long) loadAtomic(node);
+        }
+
+        @Override
+        public float readFloat(String name) {
+            var node = this.xmlDescription.getChildNode(name);
+            if (node.getPrimitiveValue() instanceof Float) {
+                return (Float) node.getPrimitiveValue();
+            }
+            return getActualType(node) == Float.class ?
+                (Float) XmlPrimitiveCodec.decode(Float.class, node.getNodeValue()) :
+                (Float) loadAtomic(node);
+        }
+
+        @Override
+        public double readDouble(String name) {
+            var node = this.xmlDescription.getChildNode(name);
+            if (node.getPrimitiveValue() instanceof Double) {
+                return (Double) node.getPrimitiveValue();
+            }
+            return getActualType(node) == Double.class ?
+                (Double) XmlPrimitiveCodec.decode(Double.class, node.getNodeValue()) :
+                (Double) loadAtomic(node);
         }
     }
 
@@ -242,6 +808,7 @@ public class XmlDeserializer {
         builtInMap.put("double", Double.TYPE);
         builtInMap.put("float", Float.TYPE);
         builtInMap.put("bool", Boolean.TYPE);
+        builtInMap.put("boolean", Boolean.TYPE);
         builtInMap.put("char", Character.TYPE);
         builtInMap.put("byte", Byte.TYPE);
         builtInMap.put("void", Void.TYPE);
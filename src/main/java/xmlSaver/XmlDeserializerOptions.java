@@ -0,0 +1,93 @@
+package xmlSaver;
+
+public class XmlDeserializerOptions {
+    private XmlSerializerRegistry registry;
+    private boolean generatedCodecs;
+    private boolean parallel;
+    private int parallelThreshold = 1024;
+    private XmlMetricsListener metricsListener;
+    private XmlElementPolicy unknownElements = XmlElementPolicy.SKIP;
+    private XmlElementPolicy missingElements = XmlElementPolicy.FAIL;
+
+    public XmlDeserializerOptions setRegistry(XmlSerializerRegistry registry) {
+        this.registry = registry;
+        return this;
+    }
+
+    // codecs are spun at runtime for classes without one generated by the annotation processor
+    public XmlDeserializerOptions setGeneratedCodecs(boolean generatedCodecs) {
+        this.generatedCodecs = generatedCodecs;
+        return this;
+    }
+
+    public XmlDeserializerOptions setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    public XmlDeserializerOptions setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("parallel threshold must be positive");
+        }
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    public XmlDeserializerOptions setMetricsListener(XmlMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        return this;
+    }
+
+    // elements of an object that match none of its fields, left behind by a removed or renamed field
+    public XmlDeserializerOptions setUnknownElements(XmlElementPolicy unknownElements) {
+        this.unknownElements = unknownElements != null ? unknownElements : XmlElementPolicy.SKIP;
+        return this;
+    }
+
+    // fields of an object without an element, added to the class after the document was saved
+    public XmlDeserializerOptions setMissingElements(XmlElementPolicy missingElements) {
+        this.missingElements = missingElements != null ? missingElements : XmlElementPolicy.FAIL;
+        return this;
+    }
+
+    // the instance keeps a copy, later changes to these options do not reach it
+    public XmlDeserializer build() {
+        var options = new XmlDeserializerOptions();
+        options.registry = this.registry;
+        options.generatedCodecs = this.generatedCodecs;
+        options.parallel = this.parallel;
+        options.parallelThreshold = this.parallelThreshold;
+        options.metricsListener = this.metricsListener;
+        options.unknownElements = this.unknownElements;
+        options.missingElements = this.missingElements;
+        return new XmlDeserializer(options);
+    }
+
+    XmlSerializerRegistry getRegistry() {
+        return registry;
+    }
+
+    boolean isGeneratedCodecs() {
+        return generatedCodecs;
+    }
+
+    boolean isParallel() {
+        return parallel;
+    }
+
+    int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    XmlMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    XmlElementPolicy getUnknownElements() {
+        return unknownElements;
+    }
+
+    XmlElementPolicy getMissingElements() {
+        return missingElements;
+    }
+}
@@ -0,0 +1,41 @@
+package xmlSaver;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Percentage;
+import jdk.jfr.Timespan;
+
+@Category("xmlSaver")
+abstract class XmlDocumentEvent extends Event {
+    @Label("Nodes")
+    long nodeCount;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Tracked Objects")
+    int trackedObjects;
+
+    @Label("Tracking Hit Rate")
+    @Percentage
+    double trackingHitRate;
+
+    @Label("Reflection Time")
+    @Timespan
+    long reflectionTime;
+
+    @Label("I/O Time")
+    @Timespan
+    long ioTime;
+
+    @Label("Parse Time")
+    @Timespan
+    long parseTime;
+
+    @Label("Handler Time")
+    @Timespan
+    long handlerTime;
+}
@@ -0,0 +1,159 @@
+package xmlSaver;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// ends a text document at the `>` closing its root element, the stream it reads from is left right behind
+// that byte when it supports mark and reset. tags are tracked on bytes, none of the markup is multi-byte in UTF-8
+class XmlDocumentInputStream extends InputStream {
+    private static final int TEXT = 0;
+    private static final int OPEN = 1;
+    private static final int START_TAG = 2;
+    private static final int END_TAG = 3;
+    private static final int BANG = 4;
+    private static final int COMMENT = 5;
+    // markup skipped up to a terminator: comments, processing instructions, CDATA and declarations
+    private static final int SKIP = 6;
+
+    private final InputStream stream;
+    private int state = TEXT;
+    private int depth;
+    private int quote;
+    private int previous;
+    // the last bytes of skipped markup, compared with the terminator packed the same way
+    private int window;
+    private int terminator;
+    private int terminatorMask;
+    private boolean finished;
+
+    XmlDocumentInputStream(InputStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        var single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (this.finished) {
+            return -1;
+        }
+        var markable = this.stream.markSupported();
+        if (markable) {
+            this.stream.mark(length);
+        }
+        var count = this.stream.read(bytes, offset, length);
+        for (int i = 0; i < count; i++) {
+            if (scan(bytes[offset + i] & 0xff)) {
+                this.finished = true;
+                // whatever was read behind the document goes back to the stream
+                if (markable) {
+                    this.stream.reset();
+                    skipFully(i + 1);
+                }
+                return i + 1;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return this.finished ? 0 : this.stream.available();
+    }
+
+    // true once the byte closes the root element
+    private boolean scan(int c) {
+        switch (this.state) {
+            case TEXT:
+                if (c == '<') {
+                    this.state = OPEN;
+                }
+                return false;
+            case OPEN:
+                if (c == '/') {
+                    this.state = END_TAG;
+                } else if (c == '?') {
+                    skipTo("?>");
+                } else if (c == '!') {
+                    this.state = BANG;
+                } else {
+                    this.state = START_TAG;
+                    this.quote = 0;
+                    this.previous = c;
+                }
+                return false;
+            case BANG:
+                if (c == '-') {
+                    this.state = COMMENT;
+                } else if (c == '[') {
+                    skipTo("]]>");
+                } else {
+                    skipTo(">");
+                }
+                return false;
+            case START_TAG:
+                if (this.quote != 0) {
+                    if (c == this.quote) {
+                        this.quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    this.quote = c;
+                } else if (c == '>') {
+                    this.state = TEXT;
+                    if (this.previous != '/') {
+                        this.depth++;
+                        return false;
+                    }
+                    return this.depth == 0;
+                }
+                this.previous = c;
+                return false;
+            case END_TAG:
+                if (c == '>') {
+                    this.state = TEXT;
+                    return --this.depth <= 0;
+                }
+                return false;
+            case COMMENT:
+                // the second dash of `<!--`, the terminator is searched behind it
+                skipTo("-->");
+                return false;
+            default:
+                this.window = (this.window << 8 | c) & this.terminatorMask;
+                if (this.window == this.terminator) {
+                    this.state = TEXT;
+                }
+                return false;
+        }
+    }
+
+    private void skipTo(String terminator) {
+        this.state = SKIP;
+        this.window = 0;
+        this.terminator = 0;
+        for (int i = 0; i < terminator.length(); i++) {
+            this.terminator = this.terminator << 8 | terminator.charAt(i);
+        }
+        this.terminatorMask = (1 << terminator.length() * 8) - 1;
+    }
+
+    private void skipFully(long count) throws IOException {
+        while (count > 0) {
+            var skipped = this.stream.skip(count);
+            if (skipped <= 0) {
+                if (this.stream.read() < 0) {
+                    return;
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+}
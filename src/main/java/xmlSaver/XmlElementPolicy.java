@@ -0,0 +1,10 @@
+package xmlSaver;
+
+public enum XmlElementPolicy {
+    // the element is ignored, a field without an element keeps the value its constructor gave it
+    SKIP,
+    // a field without an element is set to null, zero or false, unknown elements are ignored
+    DEFAULT,
+    // the load fails
+    FAIL
+}
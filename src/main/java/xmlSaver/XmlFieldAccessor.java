@@ -0,0 +1,73 @@
+package xmlSaver;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+class XmlFieldAccessor {
+    private static final MethodType getterType = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Field field;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    private final Object defaultValue;
+
+    XmlFieldAccessor(Field field) {
+        this.field = field;
+        var isStatic = Modifier.isStatic(field.getModifiers());
+        try {
+            // accessible instance fields, including final ones, may be written through an unreflected setter
+            field.setAccessible(true);
+            var lookup = MethodHandles.lookup();
+            var getter = lookup.unreflectGetter(field);
+            MethodHandle setter = null;
+            if (!(isStatic && Modifier.isFinal(field.getModifiers()))) {
+                setter = lookup.unreflectSetter(field);
+            }
+            if (isStatic) {
+                getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                setter = setter != null ? MethodHandles.dropArguments(setter, 0, Object.class) : null;
+            }
+            this.getter = getter.asType(getterType);
+            this.setter = setter != null ? setter.asType(setterType) : null;
+            this.defaultValue = field.getType().isPrimitive() ? Array.get(Array.newInstance(field.getType(), 1), 0) : null;
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalStateException("field " + field + " cannot be accessed", e);
+        }
+    }
+
+    String getName() {
+        return field.getName();
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    Object getDefaultValue() {
+        return defaultValue;
+    }
+
+    Object get(Object target) {
+        try {
+            return (Object) this.getter.invokeExact(target);
+        } catch (Throwable e) {
+            throw new IllegalStateException("field " + this.field + " cannot be read", e);
+        }
+    }
+
+    void set(Object target, Object value) {
+        if (this.setter == null) {
+            throw new IllegalStateException("static final field " + this.field + " cannot be populated");
+        }
+        try {
+            this.setter.invokeExact(target, value);
+        } catch (Throwable e) {
+            throw new IllegalStateException("field " + this.field + " cannot be populated", e);
+        }
+    }
+}
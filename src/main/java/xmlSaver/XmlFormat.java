@@ -0,0 +1,6 @@
+package xmlSaver;
+
+public enum XmlFormat {
+    XML,
+    BINARY
+}
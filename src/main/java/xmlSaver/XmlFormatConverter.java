@@ -0,0 +1,27 @@
+package xmlSaver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class XmlFormatConverter {
+    private XmlFormatConverter() {
+    }
+
+    // the source format and compression are detected, the target is written uncompressed
+    public static void convert(InputStream source, OutputStream target, XmlFormat format) {
+        new XmlNodeWriter(target).setFormat(format).save(new XmlNodeReader().load(source));
+    }
+
+    public static void convert(String sourcePath, String targetPath, XmlFormat format) {
+        XmlNode root;
+        try (var source = Files.newInputStream(Path.of(sourcePath))) {
+            root = new XmlNodeReader().load(source);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        new XmlNodeWriter(targetPath).setFormat(format).save(root);
+    }
+}
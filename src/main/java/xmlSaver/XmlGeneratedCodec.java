@@ -0,0 +1,14 @@
+package xmlSaver;
+
+public interface XmlGeneratedCodec<T> {
+    T newInstance();
+
+    boolean isStrict();
+
+    boolean isClone();
+
+    void save(T object, XmlCodecWriter writer);
+
+    // ISerializerHandler.handleSerializer is invoked by the deserializer once load returns
+    void load(T object, XmlCodecReader reader);
+}
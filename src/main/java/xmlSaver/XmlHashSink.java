@@ -0,0 +1,91 @@
+package xmlSaver;
+
+// 64-bit FNV-1a over the node events, strings are length prefixed so that separators inside values cannot collide
+class XmlHashSink extends XmlNodeSink {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    @Override
+    void beginNode(String nodeName) {
+        mix('<');
+        mix(nodeName);
+    }
+
+    @Override
+    void appendAttribute(String attrName, String attrValue) {
+        mix('=');
+        mix(attrName);
+        mix(attrValue);
+    }
+
+    @Override
+    void setValue(Object content) {
+        mix('>');
+        if (content instanceof byte[]) {
+            mix((byte[]) content);
+        } else {
+            mix(content != null ? content.toString() : null);
+        }
+    }
+
+    @Override
+    void endNode() {
+        mix('/');
+    }
+
+    @Override
+    void appendNode(XmlNode node) {
+        node.visit(new XmlNodeVisitor() {
+            @Override
+            void beginNode(String nodeName, String[] attributes, int attributeCount) {
+                XmlHashSink.this.beginNode(nodeName);
+                for (int i = 0; i < attributeCount * 2; i += 2) {
+                    appendAttribute(attributes[i], attributes[i + 1]);
+                }
+            }
+
+            @Override
+            void beginNode(String nodeName, Object nodeValue, String[] attributes, int attributeCount) {
+                beginNode(nodeName, attributes, attributeCount);
+                setValue(nodeValue);
+            }
+
+            @Override
+            void endNode() {
+                XmlHashSink.this.endNode();
+            }
+        });
+    }
+
+    long getHash() {
+        return hash;
+    }
+
+    void reset() {
+        this.hash = OFFSET_BASIS;
+    }
+
+    private void mix(String text) {
+        if (text == null) {
+            mix(0xffff);
+            return;
+        }
+        mix(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            mix(text.charAt(i));
+        }
+    }
+
+    private void mix(byte[] bytes) {
+        mix(bytes.length);
+        for (byte b : bytes) {
+            mix(b & 0xff);
+        }
+    }
+
+    private void mix(int value) {
+        this.hash = (this.hash ^ value) * PRIME;
+    }
+}
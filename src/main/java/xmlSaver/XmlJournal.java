@@ -0,0 +1,258 @@
+package xmlSaver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// a base document plus appended <delta> elements holding the records of objects that changed since the last save
+public class XmlJournal {
+    static final String SUFFIX = ".journal";
+    private static final byte[] DELTA_END = "</delta>".getBytes(StandardCharsets.UTF_8);
+
+    private final Path path;
+    private final Path journalPath;
+    private final XmlSerializerOptions options;
+    private double compactionRatio = 1;
+
+    private XmlSerializer serializer;
+    // record hashes of the last save by objectId, objects with an unchanged hash are not written again
+    private final HashMap<String, Long> hashes = new HashMap<>();
+    private long rootHash;
+    // deltas name the base they were written against, deltas of a replaced base are never replayed
+    private String baseStamp;
+    // ids of the last save are unknown or the journal may be out of step, the next save rewrites the base
+    private boolean compactionNeeded = true;
+
+    private final ArrayDeque<Object> pending = new ArrayDeque<>();
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final XmlHashSink hashSink = new XmlHashSink();
+
+    public XmlJournal(String path, XmlSerializerOptions options) {
+        this.path = Path.of(path);
+        this.journalPath = Path.of(path + SUFFIX);
+        this.options = options;
+    }
+
+    public XmlJournal(String path, XmlSerializerRegistry registry) {
+        this(path, new XmlSerializerOptions().setRegistry(registry));
+    }
+
+    public XmlJournal(String path) {
+        this(path, new XmlSerializerOptions());
+    }
+
+    // the base is rewritten once the journal grows past this share of its size
+    public XmlJournal setCompactionRatio(double compactionRatio) {
+        if (!(compactionRatio > 0)) {
+            throw new IllegalArgumentException("compaction ratio must be positive");
+        }
+        this.compactionRatio = compactionRatio;
+        return this;
+    }
+
+    public void save(Object root) {
+        if (this.compactionNeeded || isJournalOversized()) {
+            compact(root);
+            return;
+        }
+        this.compactionNeeded = true;
+        var delta = new XmlNodeBuilder();
+        delta.beginNode("delta");
+        delta.appendAttribute("base", this.baseStamp);
+        record(root, delta);
+        delta.endNode();
+        if (delta.getRoot().hasChildNodes()) {
+            append(delta.getRoot());
+        }
+        this.compactionNeeded = false;
+    }
+
+    public void compact(Object root) {
+        this.compactionNeeded = true;
+        this.serializer = XmlSerializer.createJournaled(this.options);
+        this.hashes.clear();
+        writeBase(root);
+        record(root, null);
+        this.compactionNeeded = false;
+    }
+
+    public Object load(XmlDeserializerOptions options) {
+        if (!Files.isRegularFile(this.path)) {
+            throw new IllegalArgumentException("file " + this.path + " does not exist!");
+        }
+        this.compactionNeeded = true;
+        var deserializer = XmlDeserializer.create(options);
+        Object root;
+        try (var stream = new CheckedInputStream(Files.newInputStream(this.path), new CRC32())) {
+            var base = new XmlNodeReader().load(stream);
+            stream.transferTo(OutputStream.nullOutputStream());
+            this.baseStamp = Files.size(this.path) + ":" + Long.toHexString(stream.getChecksum().getValue());
+            root = deserializer.loadXmlInternal(base);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        var stale = false;
+        if (Files.isRegularFile(this.journalPath)) {
+            byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(this.journalPath);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            // a torn delta left by an interrupted append is dropped, like deltas written against another base
+            var end = lastIndexOf(bytes, DELTA_END);
+            end = end < 0 ? 0 : end + DELTA_END.length;
+            stale = !new String(bytes, end, bytes.length - end, StandardCharsets.UTF_8).isBlank();
+            for (XmlNode delta : readJournal(bytes, end).getChildNodes("delta")) {
+                if (this.baseStamp.equals(delta.getAttribute("base"))) {
+                    root = deserializer.replay(delta, root);
+                } else {
+                    stale = true;
+                }
+            }
+        }
+        this.serializer = XmlSerializer.createJournaled(this.options);
+        this.hashes.clear();
+        var maxObjectId = 999;
+        for (var entry : deserializer.getTrackingObjects().entrySet()) {
+            this.serializer.trackLoaded(entry.getValue(), entry.getKey());
+            maxObjectId = Math.max(maxObjectId, Integer.parseInt(entry.getKey()));
+        }
+        var loaded = this.serializer.getTrackedCount();
+        record(root, null);
+        // new ids continue from the number of tracked objects, which only works while loaded ids have no gaps
+        this.compactionNeeded = stale ||
+            maxObjectId != 999 + loaded ||
+            this.serializer.getTrackedCount() != loaded;
+        return root;
+    }
+
+    public Object load(XmlSerializerRegistry registry) {
+        return load(new XmlDeserializerOptions().setRegistry(registry));
+    }
+
+    public Object load() {
+        return load(new XmlDeserializerOptions());
+    }
+
+    void enqueue(Object object) {
+        if (this.visited.add(object)) {
+            this.pending.add(object);
+        }
+    }
+
+    private void record(Object root, XmlNodeBuilder delta) {
+        this.serializer.setJournal(this);
+        try {
+            this.hashSink.reset();
+            saveRoot(root, this.hashSink);
+            var hash = this.hashSink.getHash();
+            if (delta != null && hash != this.rootHash) {
+                saveRoot(root, delta);
+            }
+            this.rootHash = hash;
+            while (!this.pending.isEmpty()) {
+                var object = this.pending.poll();
+                this.hashSink.reset();
+                var objectId = this.serializer.saveRecord(object, this.hashSink);
+                var previous = this.hashes.put(objectId, this.hashSink.getHash());
+                if (delta != null && (previous == null || previous != this.hashSink.getHash())) {
+                    this.serializer.saveRecord(object, delta);
+                }
+            }
+        } finally {
+            this.serializer.setJournal(null);
+            this.pending.clear();
+            this.visited.clear();
+        }
+    }
+
+    private void saveRoot(Object root, XmlNodeSink xmlDescription) {
+        xmlDescription.beginNode("root");
+        this.serializer.saveAtomic(root, xmlDescription);
+        xmlDescription.endNode();
+    }
+
+    private void writeBase(Object root) {
+        // the base is replaced in one move, a crash leaves either the old base with its journal or the new one
+        var checksum = new CRC32();
+        try {
+            XmlWriteBehind.replace(this.path, x -> this.serializer.saveXmlInternal(
+                root,
+                XmlSerializer.createWriter(new XmlNodeWriter(new CheckedOutputStream(x, checksum)), this.options)
+            ));
+            this.baseStamp = Files.size(this.path) + ":" + Long.toHexString(checksum.getValue());
+            Files.deleteIfExists(this.journalPath);
+        } catch (IOException e) {
+            throw new IllegalStateException("file " + this.path + " cannot be written!", e);
+        }
+    }
+
+    private void append(XmlNode delta) {
+        var buffer = new ByteArrayOutputStream();
+        new XmlNodeWriter(buffer).save(delta);
+        try (var channel = FileChannel.open(
+            this.journalPath,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND
+        )) {
+            var bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new IllegalStateException("file " + this.journalPath + " cannot be written!", e);
+        }
+    }
+
+    private boolean isJournalOversized() {
+        try {
+            return Files.isRegularFile(this.journalPath) &&
+                Files.size(this.journalPath) > Files.size(this.path) * this.compactionRatio;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static XmlNode readJournal(byte[] bytes, int end) {
+        // the journal is a sequence of elements, it is parsed as the children of one synthetic root
+        return new XmlNodeReader().load(new SequenceInputStream(Collections.enumeration(List.<InputStream>of(
+            new ByteArrayInputStream("<journal>".getBytes(StandardCharsets.UTF_8)),
+            new ByteArrayInputStream(bytes, 0, end),
+            new ByteArrayInputStream("</journal>".getBytes(StandardCharsets.UTF_8))
+        ))));
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte[] pattern) {
+        for (int i = bytes.length - pattern.length; i >= 0; i--) {
+            var found = true;
+            for (int j = 0; j < pattern.length && found; j++) {
+                found = bytes[i + j] == pattern[j];
+            }
+            if (found) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
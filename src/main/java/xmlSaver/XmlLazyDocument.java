@@ -0,0 +1,155 @@
+package xmlSaver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class XmlLazyDocument implements Closeable {
+    private final XmlMappedFile file;
+    private final XmlLazyIndex index;
+    private final XmlDeserializer deserializer;
+    private final XmlLazyHandle root;
+    private final String classes;
+
+    private XmlLazyDocument(XmlMappedFile file, XmlLazyIndex index, XmlDeserializerOptions options) {
+        this.file = file;
+        this.index = index;
+        this.deserializer = XmlDeserializer.create(options);
+        this.deserializer.setUnresolvedReferences(this::resolve);
+        this.root = new XmlLazyHandle(this, 0);
+        var header = readHeader(0);
+        this.classes = header.getAttribute("classes");
+        this.deserializer.loadClassTable(header);
+    }
+
+    public static XmlLazyDocument open(String path, XmlDeserializerOptions options) {
+        var documentPath = Path.of(path);
+        XmlMappedFile file = null;
+        try {
+            file = new XmlMappedFile(documentPath);
+            checkFormat(file, path);
+            // an index saved next to the document is mapped as is, otherwise the document is scanned once
+            var index = XmlLazyIndex.read(
+                Path.of(path + XmlLazyIndex.SUFFIX),
+                file.size(),
+                Files.getLastModifiedTime(documentPath).toMillis()
+            );
+            return new XmlLazyDocument(file, index != null ? index : XmlLazyIndex.build(file), options);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(file, e);
+            if (e instanceof IOException) {
+                throw new IllegalStateException(e);
+            }
+            throw (RuntimeException) e;
+        }
+    }
+
+    public static XmlLazyDocument open(String path, XmlSerializerRegistry registry) {
+        return open(path, new XmlDeserializerOptions().setRegistry(registry));
+    }
+
+    public static XmlLazyDocument open(String path) {
+        return open(path, new XmlDeserializerOptions());
+    }
+
+    public XmlLazyHandle getRoot() {
+        return root;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.file.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void writeIndex(String path) {
+        var documentPath = Path.of(path);
+        try (var file = new XmlMappedFile(documentPath)) {
+            XmlLazyIndex.build(file).write(
+                Path.of(path + XmlLazyIndex.SUFFIX),
+                file.size(),
+                Files.getLastModifiedTime(documentPath).toMillis()
+            );
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    XmlLazyIndex getIndex() {
+        return index;
+    }
+
+    XmlDeserializer getDeserializer() {
+        return deserializer;
+    }
+
+    // only the start tag is parsed, children stay untouched
+    XmlNode readHeader(int element) {
+        var parser = new XmlPullParser(new InputStreamReader(
+            this.file.openStream(this.index.getStart(element), this.index.getEnd(element)),
+            StandardCharsets.UTF_8
+        ));
+        if (parser.next() != XmlPullParser.START_TAG) {
+            throw new IllegalStateException("element " + element + " doesn`t start with a tag");
+        }
+        var node = new XmlNode(parser.getName());
+        for (int i = 0; i < parser.getAttributeCount(); i++) {
+            node.appendAttribute(parser.getAttributeName(i), parser.getAttributeValue(i));
+        }
+        return node;
+    }
+
+    XmlNode readNode(int element) {
+        return new XmlNodeReader().setClassTable(this.classes).load(new InputStreamReader(
+            this.file.openStream(this.index.getStart(element), this.index.getEnd(element)),
+            StandardCharsets.UTF_8
+        ));
+    }
+
+    Object load(int element) {
+        return this.deserializer.loadAtomic(readNode(element));
+    }
+
+    private Object resolve(String objectId) {
+        var element = -1;
+        try {
+            element = this.index.findDefinition(Long.parseLong(objectId));
+        } catch (NumberFormatException e) {
+            // not written by XmlSerializer, reported below
+        }
+        if (element < 0) {
+            throw new IllegalStateException("objectId " + objectId + " isn`t defined in the document");
+        }
+        return load(element);
+    }
+
+    private static void checkFormat(XmlMappedFile file, String path) {
+        for (long i = 0; i < file.size(); i++) {
+            var c = file.get(i);
+            if (c == '<') {
+                return;
+            }
+            if (!Character.isWhitespace(c) && !(i < 3 && (c == 0xef || c == 0xbb || c == 0xbf))) {
+                break;
+            }
+        }
+        throw new IllegalArgumentException("lazy loading needs an uncompressed XML document, " + path + " isn`t one");
+    }
+
+    private static void closeQuietly(XmlMappedFile file, Exception cause) {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
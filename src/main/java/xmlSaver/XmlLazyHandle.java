@@ -0,0 +1,77 @@
+package xmlSaver;
+
+public class XmlLazyHandle {
+    private final XmlLazyDocument document;
+    private final int element;
+    private XmlNode header;
+    private int[] children;
+    private Object value;
+    private boolean loaded;
+
+    XmlLazyHandle(XmlLazyDocument document, int element) {
+        this.document = document;
+        this.element = element;
+    }
+
+    public String getName() {
+        return header().getNodeName();
+    }
+
+    public Class<?> getType() {
+        return this.document.getDeserializer().getActualType(header());
+    }
+
+    public boolean isReference() {
+        return header().hasAttribute("objectId") && getType() == null;
+    }
+
+    public XmlLazyHandle getField(String name) {
+        for (int child : children()) {
+            var handle = new XmlLazyHandle(this.document, child);
+            if (handle.getName().equals(name)) {
+                return handle;
+            }
+        }
+        throw new IllegalArgumentException("element <" + getName() + "> has no field " + name);
+    }
+
+    // items of arrays, collections and maps, map items expose `key` and `value` fields
+    public int size() {
+        return children().length;
+    }
+
+    public XmlLazyHandle getItem(int index) {
+        return new XmlLazyHandle(this.document, children()[index]);
+    }
+
+    public Object get() {
+        if (!this.loaded) {
+            this.value = this.document.load(this.element);
+            this.loaded = true;
+        }
+        return value;
+    }
+
+    private XmlNode header() {
+        if (this.header == null) {
+            this.header = this.document.readHeader(this.element);
+        }
+        return header;
+    }
+
+    private int[] children() {
+        if (this.children == null) {
+            var index = this.document.getIndex();
+            var count = 0;
+            for (int child = index.getFirstChild(this.element); child >= 0; child = index.getNextSibling(child)) {
+                count++;
+            }
+            var result = new int[count];
+            for (int i = 0, child = index.getFirstChild(this.element); child >= 0; child = index.getNextSibling(child)) {
+                result[i++] = child;
+            }
+            this.children = result;
+        }
+        return children;
+    }
+}
@@ -0,0 +1,412 @@
+package xmlSaver;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+// element offsets of a text document: element 0 is the root, children are linked through firstChild/nextSibling
+class XmlLazyIndex {
+    private static final int MAGIC = 0x584c4901;
+    private static final int HEADER_SIZE = 28;
+    static final String SUFFIX = ".index";
+
+    private final int elementCount;
+    private final LongBuffer starts;
+    private final LongBuffer ends;
+    private final IntBuffer firstChildren;
+    private final IntBuffer nextSiblings;
+    private final LongBuffer definitionIds;
+    private final IntBuffer definitionElements;
+
+    private XmlLazyIndex(
+        int elementCount,
+        LongBuffer starts,
+        LongBuffer ends,
+        IntBuffer firstChildren,
+        IntBuffer nextSiblings,
+        LongBuffer definitionIds,
+        IntBuffer definitionElements
+    ) {
+        this.elementCount = elementCount;
+        this.starts = starts;
+        this.ends = ends;
+        this.firstChildren = firstChildren;
+        this.nextSiblings = nextSiblings;
+        this.definitionIds = definitionIds;
+        this.definitionElements = definitionElements;
+    }
+
+    int getElementCount() {
+        return elementCount;
+    }
+
+    long getStart(int element) {
+        return this.starts.get(element);
+    }
+
+    long getEnd(int element) {
+        return this.ends.get(element);
+    }
+
+    int getFirstChild(int element) {
+        return this.firstChildren.get(element);
+    }
+
+    int getNextSibling(int element) {
+        return this.nextSiblings.get(element);
+    }
+
+    int findDefinition(long objectId) {
+        int low = 0;
+        int high = this.definitionIds.limit() - 1;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            var id = this.definitionIds.get(middle);
+            if (id < objectId) {
+                low = middle + 1;
+            } else if (id > objectId) {
+                high = middle - 1;
+            } else {
+                return this.definitionElements.get(middle);
+            }
+        }
+        return -1;
+    }
+
+    static XmlLazyIndex build(XmlMappedFile file) {
+        return new Scanner(file).scan();
+    }
+
+    // returns null when the index is missing, incomplete or was written for another version of the document
+    static XmlLazyIndex read(Path indexPath, long documentSize, long documentModified) throws IOException {
+        if (!Files.isRegularFile(indexPath)) {
+            return null;
+        }
+        try (var channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            var header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // the header is tiny, keep reading until it is complete
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE ||
+                header.getInt() != MAGIC ||
+                header.getLong() != documentSize ||
+                header.getLong() != documentModified) {
+                return null;
+            }
+            var elementCount = header.getInt();
+            var definitionCount = header.getInt();
+            // a truncated or foreign file would be mapped past its end, it is rebuilt instead
+            if (elementCount < 1 ||
+                definitionCount < 0 ||
+                channel.size() != HEADER_SIZE + elementCount * 24L + definitionCount * 12L) {
+                return null;
+            }
+            var offset = (long) HEADER_SIZE;
+            var starts = map(channel, offset, elementCount * 8L).asLongBuffer();
+            offset += elementCount * 8L;
+            var ends = map(channel, offset, elementCount * 8L).asLongBuffer();
+            offset += elementCount * 8L;
+            var firstChildren = map(channel, offset, elementCount * 4L).asIntBuffer();
+            offset += elementCount * 4L;
+            var nextSiblings = map(channel, offset, elementCount * 4L).asIntBuffer();
+            offset += elementCount * 4L;
+            var definitionIds = map(channel, offset, definitionCount * 8L).asLongBuffer();
+            offset += definitionCount * 8L;
+            var definitionElements = map(channel, offset, definitionCount * 4L).asIntBuffer();
+            return new XmlLazyIndex(
+                elementCount,
+                starts,
+                ends,
+                firstChildren,
+                nextSiblings,
+                definitionIds,
+                definitionElements
+            );
+        }
+    }
+
+    void write(Path indexPath, long documentSize, long documentModified) throws IOException {
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(documentSize);
+            out.writeLong(documentModified);
+            out.writeInt(this.elementCount);
+            out.writeInt(this.definitionIds.limit());
+            for (int i = 0; i < this.elementCount; i++) {
+                out.writeLong(this.starts.get(i));
+            }
+            for (int i = 0; i < this.elementCount; i++) {
+                out.writeLong(this.ends.get(i));
+            }
+            for (int i = 0; i < this.elementCount; i++) {
+                out.writeInt(this.firstChildren.get(i));
+            }
+            for (int i = 0; i < this.elementCount; i++) {
+                out.writeInt(this.nextSiblings.get(i));
+            }
+            for (int i = 0; i < this.definitionIds.limit(); i++) {
+                out.writeLong(this.definitionIds.get(i));
+            }
+            for (int i = 0; i < this.definitionElements.limit(); i++) {
+                out.writeInt(this.definitionElements.get(i));
+            }
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalStateException("index region of " + length + " bytes cannot be mapped");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    private static class Scanner {
+        private final XmlMappedFile file;
+        private final long size;
+
+        private int elementCount;
+        private long[] starts = new long[1024];
+        private long[] ends = new long[1024];
+        private int[] firstChildren = new int[1024];
+        private int[] nextSiblings = new int[1024];
+        private int definitionCount;
+        private long[] definitionIds = new long[256];
+        private int[] definitionElements = new int[256];
+
+        private int depth;
+        private int[] open = new int[64];
+        private int[] lastChildren = new int[64];
+
+        Scanner(XmlMappedFile file) {
+            this.file = file;
+            this.size = file.size();
+        }
+
+        XmlLazyIndex scan() {
+            long position = 0;
+            while (position < this.size) {
+                if (this.file.get(position) != '<') {
+                    position++;
+                    continue;
+                }
+                var next = position + 1 < this.size ? this.file.get(position + 1) : -1;
+                if (next == '?') {
+                    position = skipPast(position + 2, "?>");
+                } else if (next == '!') {
+                    if (startsWith(position, "<!--")) {
+                        position = skipPast(position + 4, "-->");
+                    } else if (startsWith(position, "<![CDATA[")) {
+                        position = skipPast(position + 9, "]]>");
+                    } else {
+                        position = skipPast(position + 2, ">");
+                    }
+                } else if (next == '/') {
+                    if (this.depth == 0) {
+                        throw new IllegalStateException("unexpected end tag at byte " + position);
+                    }
+                    position = skipPast(position + 2, ">");
+                    this.ends[this.open[--this.depth]] = position;
+                } else {
+                    position = scanStartTag(position);
+                }
+            }
+            if (this.elementCount == 0 || this.depth != 0) {
+                throw new IllegalStateException("document ends inside an element");
+            }
+            sortDefinitions();
+            return new XmlLazyIndex(
+                this.elementCount,
+                LongBuffer.wrap(this.starts, 0, this.elementCount),
+                LongBuffer.wrap(this.ends, 0, this.elementCount),
+                IntBuffer.wrap(this.firstChildren, 0, this.elementCount),
+                IntBuffer.wrap(this.nextSiblings, 0, this.elementCount),
+                LongBuffer.wrap(this.definitionIds, 0, this.definitionCount),
+                IntBuffer.wrap(this.definitionElements, 0, this.definitionCount)
+            );
+        }
+
+        private long scanStartTag(long position) {
+            var element = addElement(position);
+            long objectId = -1;
+            var typed = false;
+            var cursor = position + 1;
+            while (cursor < this.size && isNameChar(this.file.get(cursor))) {
+                cursor++;
+            }
+            while (true) {
+                while (cursor < this.size && Character.isWhitespace(this.file.get(cursor))) {
+                    cursor++;
+                }
+                if (cursor >= this.size) {
+                    throw new IllegalStateException("document ends inside a tag");
+                }
+                var c = this.file.get(cursor);
+                if (c == '>' || c == '/') {
+                    var empty = c == '/';
+                    cursor = skipPast(cursor, ">");
+                    if (objectId >= 0 && typed) {
+                        addDefinition(objectId, element);
+                    }
+                    if (empty) {
+                        this.ends[element] = cursor;
+                    } else {
+                        push(element);
+                    }
+                    return cursor;
+                }
+                var nameStart = cursor;
+                while (cursor < this.size && isNameChar(this.file.get(cursor))) {
+                    cursor++;
+                }
+                var nameEnd = cursor;
+                if (nameStart == nameEnd) {
+                    throw new IllegalStateException("malformed tag at byte " + position);
+                }
+                cursor = skipPast(cursor, "=");
+                while (cursor < this.size && Character.isWhitespace(this.file.get(cursor))) {
+                    cursor++;
+                }
+                var quote = cursor < this.size ? this.file.get(cursor) : -1;
+                if (quote != '"' && quote != '\'') {
+                    throw new IllegalStateException("malformed attribute at byte " + cursor);
+                }
+                var valueStart = cursor + 1;
+                cursor = skipPast(valueStart, quote == '"' ? "\"" : "'");
+                if (isName(nameStart, nameEnd, "objectId")) {
+                    objectId = parseId(valueStart, cursor - 1);
+                } else if (isName(nameStart, nameEnd, "class") || isName(nameStart, nameEnd, "type")) {
+                    typed = true;
+                }
+            }
+        }
+
+        private int addElement(long start) {
+            if (this.elementCount == this.starts.length) {
+                var capacity = this.elementCount * 2;
+                this.starts = Arrays.copyOf(this.starts, capacity);
+                this.ends = Arrays.copyOf(this.ends, capacity);
+                this.firstChildren = Arrays.copyOf(this.firstChildren, capacity);
+                this.nextSiblings = Arrays.copyOf(this.nextSiblings, capacity);
+            }
+            var element = this.elementCount++;
+            this.starts[element] = start;
+            this.firstChildren[element] = -1;
+            this.nextSiblings[element] = -1;
+            if (this.depth > 0) {
+                var parent = this.depth - 1;
+                var lastChild = this.lastChildren[parent];
+                if (lastChild < 0) {
+                    this.firstChildren[this.open[parent]] = element;
+                } else {
+                    this.nextSiblings[lastChild] = element;
+                }
+                this.lastChildren[parent] = element;
+            } else if (element > 0) {
+                throw new IllegalStateException("second root element at byte " + start);
+            }
+            return element;
+        }
+
+        private void push(int element) {
+            if (this.depth == this.open.length) {
+                this.open = Arrays.copyOf(this.open, this.depth * 2);
+                this.lastChildren = Arrays.copyOf(this.lastChildren, this.depth * 2);
+            }
+            this.open[this.depth] = element;
+            this.lastChildren[this.depth] = -1;
+            this.depth++;
+        }
+
+        private void addDefinition(long objectId, int element) {
+            if (this.definitionCount == this.definitionIds.length) {
+                this.definitionIds = Arrays.copyOf(this.definitionIds, this.definitionCount * 2);
+                this.definitionElements = Arrays.copyOf(this.definitionElements, this.definitionCount * 2);
+            }
+            this.definitionIds[this.definitionCount] = objectId;
+            this.definitionElements[this.definitionCount] = element;
+            this.definitionCount++;
+        }
+
+        // ids grow in document order when written by XmlSerializer, other documents get sorted here
+        private void sortDefinitions() {
+            for (int i = 1; i < this.definitionCount; i++) {
+                if (this.definitionIds[i - 1] > this.definitionIds[i]) {
+                    var order = IntStream.range(0, this.definitionCount).
+                        boxed().
+                        sorted(Comparator.comparingLong(x -> this.definitionIds[x])).
+                        mapToInt(x -> x).
+                        toArray();
+                    var ids = new long[this.definitionCount];
+                    var elements = new int[this.definitionCount];
+                    for (int j = 0; j < order.length; j++) {
+                        ids[j] = this.definitionIds[order[j]];
+                        elements[j] = this.definitionElements[order[j]];
+                    }
+                    this.definitionIds = ids;
+                    this.definitionElements = elements;
+                    return;
+                }
+            }
+        }
+
+        private long parseId(long start, long end) {
+            long value = 0;
+            if (start == end) {
+                return -1;
+            }
+            for (long i = start; i < end; i++) {
+                var c = this.file.get(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+        private boolean isName(long start, long end, String name) {
+            if (end - start != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (this.file.get(start + i) != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean startsWith(long position, String prefix) {
+            if (position + prefix.length() > this.size) {
+                return false;
+            }
+            return isName(position, position + prefix.length(), prefix);
+        }
+
+        // returns the position right after the terminator
+        private long skipPast(long position, String terminator) {
+            var first = terminator.charAt(0);
+            for (long i = position; i + terminator.length() <= this.size; i++) {
+                if (this.file.get(i) == first && startsWith(i, terminator)) {
+                    return i + terminator.length();
+                }
+            }
+            throw new IllegalStateException("`" + terminator + "` expected after byte " + position);
+        }
+
+        private static boolean isNameChar(int c) {
+            return c >= 0x80 || Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':';
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package xmlSaver;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("xmlSaver.Load")
+@Label("XML Load")
+class XmlLoadEvent extends XmlDocumentEvent {
+}
@@ -0,0 +1,46 @@
+package xmlSaver;
+
+import java.util.BitSet;
+import java.util.concurrent.RecursiveAction;
+
+class XmlLoadTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final XmlDeserializer deserializer;
+    private final XmlNode[] items;
+    private final boolean entries;
+    private final int from;
+    private final int to;
+    private final BitSet dependencies;
+    private final XmlLoadTask[] tasks;
+    private final Object[] results;
+
+    XmlLoadTask(
+        XmlDeserializer deserializer,
+        XmlNode[] items,
+        boolean entries,
+        int from,
+        int to,
+        BitSet dependencies,
+        XmlLoadTask[] tasks,
+        Object[] results
+    ) {
+        this.deserializer = deserializer;
+        this.items = items;
+        this.entries = entries;
+        this.from = from;
+        this.to = to;
+        this.dependencies = dependencies;
+        this.tasks = tasks;
+        this.results = results;
+    }
+
+    @Override
+    protected void compute() {
+        // dependencies always point to earlier chunks, so waiting on them cannot cycle
+        for (int i = this.dependencies.nextSetBit(0); i >= 0; i = this.dependencies.nextSetBit(i + 1)) {
+            this.tasks[i].join();
+        }
+        this.deserializer.loadChunk(this.items, this.from, this.to, this.entries, this.results);
+    }
+}
@@ -0,0 +1,79 @@
+package xmlSaver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// a single mapping is limited to 2 GB, larger documents are mapped as consecutive segments
+class XmlMappedFile implements Closeable {
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+    private final FileChannel channel;
+    private final long size;
+    private final MappedByteBuffer[] segments;
+
+    XmlMappedFile(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.size = this.channel.size();
+            this.segments = new MappedByteBuffer[(int) ((this.size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+            for (int i = 0; i < this.segments.length; i++) {
+                var offset = (long) i << SEGMENT_BITS;
+                this.segments[i] = this.channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    offset,
+                    Math.min(SEGMENT_SIZE, this.size - offset)
+                );
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    int get(long offset) {
+        return this.segments[(int) (offset >>> SEGMENT_BITS)].get((int) (offset & (SEGMENT_SIZE - 1))) & 0xff;
+    }
+
+    InputStream openStream(long start, long end) {
+        return new InputStream() {
+            private long position = start;
+
+            @Override
+            public int read() {
+                return this.position < end ? get(this.position++) : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                if (this.position >= end) {
+                    return -1;
+                }
+                var segment = XmlMappedFile.this.segments[(int) (this.position >>> SEGMENT_BITS)].duplicate();
+                var index = (int) (this.position & (SEGMENT_SIZE - 1));
+                var count = (int) Math.min(Math.min(length, end - this.position), segment.limit() - index);
+                segment.position(index);
+                segment.get(bytes, offset, count);
+                this.position += count;
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,216 @@
+package xmlSaver;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// counters of one save or load, parallel workers share the instance
+public class XmlMetrics {
+    private final long startNanos = System.nanoTime();
+    private long totalNanos;
+    private int trackedObjects;
+    private final LongAdder nodeCount = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder trackingLookups = new LongAdder();
+    private final LongAdder trackingHits = new LongAdder();
+    private final LongAdder reflectionNanos = new LongAdder();
+    private final LongAdder ioNanos = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder handlerNanos = new LongAdder();
+    private final ConcurrentHashMap<Class<?>, LongAdder> objectCounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, LongAdder> objectNanos = new ConcurrentHashMap<>();
+    // time of nested objects on the current thread, subtracted so that every class reports its own time only
+    private final ThreadLocal<long[]> nestedNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getNodeCount() {
+        return nodeCount.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public int getTrackedObjects() {
+        return trackedObjects;
+    }
+
+    public long getTrackingLookups() {
+        return trackingLookups.sum();
+    }
+
+    public long getTrackingHits() {
+        return trackingHits.sum();
+    }
+
+    public double getTrackingHitRate() {
+        var lookups = getTrackingLookups();
+        return lookups == 0 ? 0 : (double) getTrackingHits() / lookups;
+    }
+
+    public long getReflectionNanos() {
+        return reflectionNanos.sum();
+    }
+
+    public long getIoNanos() {
+        return ioNanos.sum();
+    }
+
+    public long getParseNanos() {
+        return parseNanos.sum();
+    }
+
+    public long getHandlerNanos() {
+        return handlerNanos.sum();
+    }
+
+    public Map<Class<?>, Long> getObjectCounts() {
+        return sums(objectCounts);
+    }
+
+    public Map<Class<?>, Long> getObjectNanos() {
+        return sums(objectNanos);
+    }
+
+    void addNode() {
+        this.nodeCount.increment();
+    }
+
+    void addNodes(long count) {
+        this.nodeCount.add(count);
+    }
+
+    void addLookup(boolean hit) {
+        this.trackingLookups.increment();
+        if (hit) {
+            this.trackingHits.increment();
+        }
+    }
+
+    void addReflection(long start) {
+        this.reflectionNanos.add(System.nanoTime() - start);
+    }
+
+    void addParse(long nanos) {
+        this.parseNanos.add(nanos);
+    }
+
+    void addHandler(long start) {
+        this.handlerNanos.add(System.nanoTime() - start);
+    }
+
+    long enterObject() {
+        var nested = this.nestedNanos.get();
+        var outer = nested[0];
+        nested[0] = 0;
+        return outer;
+    }
+
+    void countObject(Class<?> clazz) {
+        this.objectCounts.computeIfAbsent(clazz, x -> new LongAdder()).increment();
+    }
+
+    void exitObject(Class<?> clazz, long start, long outer) {
+        var elapsed = System.nanoTime() - start;
+        var nested = this.nestedNanos.get();
+        this.objectNanos.computeIfAbsent(clazz, x -> new LongAdder()).add(elapsed - nested[0]);
+        nested[0] = outer + elapsed;
+    }
+
+    void finish(int trackedObjects) {
+        this.trackedObjects = trackedObjects;
+        this.totalNanos = System.nanoTime() - this.startNanos;
+    }
+
+    void commit(XmlDocumentEvent event) {
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.nodeCount = getNodeCount();
+        event.bytes = getBytes();
+        event.trackedObjects = getTrackedObjects();
+        event.trackingHitRate = getTrackingHitRate();
+        event.reflectionTime = getReflectionNanos();
+        event.ioTime = getIoNanos();
+        event.parseTime = getParseNanos();
+        event.handlerTime = getHandlerNanos();
+        event.commit();
+        var operation = event instanceof XmlSaveEvent ? "save" : "load";
+        this.objectNanos.forEach((clazz, nanos) -> {
+            var count = this.objectCounts.get(clazz);
+            var classEvent = new XmlClassEvent();
+            classEvent.operation = operation;
+            classEvent.className = clazz.getName();
+            classEvent.count = count != null ? count.sum() : 0;
+            classEvent.time = nanos.sum();
+            classEvent.commit();
+        });
+    }
+
+    OutputStream count(OutputStream stream) {
+        return new FilterOutputStream(stream) {
+            @Override
+            public void write(int b) throws IOException {
+                var start = System.nanoTime();
+                this.out.write(b);
+                ioNanos.add(System.nanoTime() - start);
+                bytes.increment();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                var start = System.nanoTime();
+                this.out.write(b, off, len);
+                ioNanos.add(System.nanoTime() - start);
+                bytes.add(len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                var start = System.nanoTime();
+                this.out.flush();
+                ioNanos.add(System.nanoTime() - start);
+            }
+        };
+    }
+
+    InputStream count(InputStream stream) {
+        return new FilterInputStream(stream) {
+            @Override
+            public int read() throws IOException {
+                var start = System.nanoTime();
+                var b = this.in.read();
+                ioNanos.add(System.nanoTime() - start);
+                if (b >= 0) {
+                    bytes.increment();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                var start = System.nanoTime();
+                var count = this.in.read(b, off, len);
+                ioNanos.add(System.nanoTime() - start);
+                if (count > 0) {
+                    bytes.add(count);
+                }
+                return count;
+            }
+        };
+    }
+
+    private static Map<Class<?>, Long> sums(Map<Class<?>, LongAdder> adders) {
+        return adders.entrySet().stream().
+            collect(Collectors.toMap(Map.Entry::getKey, x -> x.getValue().sum()));
+    }
+}
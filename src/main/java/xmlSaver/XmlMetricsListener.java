@@ -0,0 +1,9 @@
+package xmlSaver;
+
+public interface XmlMetricsListener {
+    default void saved(XmlMetrics metrics) {
+    }
+
+    default void loaded(XmlMetrics metrics) {
+    }
+}
@@ -1,15 +1,26 @@
 package xmlSaver;
 
-import xmlSaver.XmlNodeVisitor;
-
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 class XmlNode {
+    private static final String[] NO_ATTRIBUTES = new String[0];
+    private static final XmlNode[] NO_CHILDREN = new XmlNode[0];
+    private static final XmlNode[] NO_MATCHES = new XmlNode[0];
+
     private final String nodeName;
-    private String nodeValue;
-    private final HashMap<String, String> attributes = new HashMap<>();
-    private final ArrayList<XmlNode> childNodes = new ArrayList<>();
+    // text from XML documents, boxed primitives from the serializer or the binary format
+    private Object nodeValue;
+    // name/value pairs in insertion order, nodes carry few attributes so a scan beats hashing
+    private String[] attributes = NO_ATTRIBUTES;
+    private int attributeCount;
+    private XmlNode[] childNodes = NO_CHILDREN;
+    private int childCount;
+    // fields are looked up in the order they were written, so the next lookup starts behind the last match,
+    // every lookup wraps around, a cursor moved by a concurrent reader only costs a longer scan
+    private int cursor;
 
     XmlNode(String nodeName) {
         this.nodeName = nodeName;
@@ -26,51 +37,143 @@ class XmlNode {
     }
 
     XmlNode getChildNode(String nodeName) {
-        return childNodes.stream().
-            filter(x -> x.nodeName.equals(nodeName)).
-            findFirst().
-            orElseThrow();
+        for (int i = this.cursor; i < this.childCount; i++) {
+            if (matches(this.childNodes[i], nodeName)) {
+                this.cursor = i + 1;
+                return this.childNodes[i];
+            }
+        }
+        for (int i = 0; i < this.cursor && i < this.childCount; i++) {
+            if (matches(this.childNodes[i], nodeName)) {
+                this.cursor = i + 1;
+                return this.childNodes[i];
+            }
+        }
+        throw new NoSuchElementException("No value present");
     }
 
     XmlNode[] getChildNodes(@SuppressWarnings("SameParameterValue") String nodeName) {
-        return childNodes.stream().
-            filter(x -> x.nodeName.equals(nodeName)).
-            toArray(XmlNode[]::new);
+        int count = 0;
+        for (int i = 0; i < this.childCount; i++) {
+            if (matches(this.childNodes[i], nodeName)) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return NO_MATCHES;
+        }
+        if (count == this.childCount) {
+            return Arrays.copyOf(this.childNodes, count);
+        }
+        var matches = new XmlNode[count];
+        count = 0;
+        for (int i = 0; i < this.childCount; i++) {
+            if (matches(this.childNodes[i], nodeName)) {
+                matches[count++] = this.childNodes[i];
+            }
+        }
+        return matches;
     }
 
     String getAttribute(@SuppressWarnings("SameParameterValue") String attrName) {
-        return this.attributes.get(attrName);
+        var index = indexOfAttribute(attrName);
+        return index >= 0 ? this.attributes[index + 1] : null;
     }
 
     boolean hasAttribute(@SuppressWarnings("SameParameterValue") String attrName) {
-        return this.attributes.containsKey(attrName);
+        return indexOfAttribute(attrName) >= 0;
     }
 
     void appendAttribute(@SuppressWarnings("SameParameterValue") String attrName, String attrValue) {
-        this.attributes.put(attrName, attrValue);
+        var index = indexOfAttribute(attrName);
+        if (index >= 0) {
+            this.attributes[index + 1] = attrValue;
+            return;
+        }
+        index = this.attributeCount * 2;
+        if (index == this.attributes.length) {
+            this.attributes = Arrays.copyOf(this.attributes, Math.max(4, index * 2));
+        }
+        this.attributes[index] = attrName;
+        this.attributes[index + 1] = attrValue;
+        this.attributeCount++;
+    }
+
+    void clear() {
+        this.nodeValue = null;
+        Arrays.fill(this.attributes, 0, this.attributeCount * 2, null);
+        this.attributeCount = 0;
+        Arrays.fill(this.childNodes, 0, this.childCount, null);
+        this.childCount = 0;
+        this.cursor = 0;
     }
 
-    void setValue(String content) {
+    void setValue(Object content) {
         this.nodeValue = content;
     }
 
     void appendChild(XmlNode child) {
-        this.childNodes.add(child);
+        if (this.childCount == this.childNodes.length) {
+            this.childNodes = Arrays.copyOf(this.childNodes, Math.max(4, this.childCount * 2));
+        }
+        this.childNodes[this.childCount++] = child;
     }
 
     void visit(XmlNodeVisitor visitor) {
-        if (this.childNodes.isEmpty()) {
-            visitor.beginNode(this.nodeName, this.nodeValue, this.attributes.entrySet());
+        if (this.childCount == 0) {
+            visitor.beginNode(this.nodeName, this.nodeValue, this.attributes, this.attributeCount);
         } else {
-            visitor.beginNode(this.nodeName, this.attributes.entrySet());
+            visitor.beginNode(this.nodeName, this.attributes, this.attributeCount);
         }
-        for (XmlNode childNode : childNodes) {
-            childNode.visit(visitor);
+        for (int i = 0; i < this.childCount; i++) {
+            this.childNodes[i].visit(visitor);
         }
         visitor.endNode();
     }
 
+    String getNodeName() {
+        return nodeName;
+    }
+
     String getNodeValue() {
+        if (nodeValue instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) nodeValue);
+        }
+        return nodeValue != null ? nodeValue.toString() : null;
+    }
+
+    Object getPrimitiveValue() {
         return nodeValue;
     }
+
+    List<XmlNode> getChildNodes() {
+        return Arrays.asList(this.childNodes).subList(0, this.childCount);
+    }
+
+    int getChildCount() {
+        return childCount;
+    }
+
+    XmlNode getChildNode(int index) {
+        return this.childNodes[index];
+    }
+
+    boolean hasChildNodes() {
+        return this.childCount > 0;
+    }
+
+    private int indexOfAttribute(String attrName) {
+        for (int i = 0; i < this.attributeCount * 2; i += 2) {
+            var name = this.attributes[i];
+            if (name == attrName || name.equals(attrName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(XmlNode node, String nodeName) {
+        // names from the parser and from reflection are interned, the identity check usually decides
+        return node.nodeName == nodeName || node.nodeName.equals(nodeName);
+    }
 }
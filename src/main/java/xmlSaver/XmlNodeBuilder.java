@@ -0,0 +1,45 @@
+package xmlSaver;
+
+import java.util.ArrayDeque;
+
+class XmlNodeBuilder extends XmlNodeSink {
+    private final ArrayDeque<XmlNode> nodes = new ArrayDeque<>();
+    private XmlNode root;
+
+    @Override
+    void beginNode(String nodeName) {
+        var node = this.nodes.isEmpty() ? new XmlNode(nodeName) : new XmlNode(nodeName, this.nodes.peek());
+        if (this.root == null) {
+            this.root = node;
+        }
+        this.nodes.push(node);
+    }
+
+    @Override
+    void appendAttribute(String attrName, String attrValue) {
+        this.nodes.element().appendAttribute(attrName, attrValue);
+    }
+
+    @Override
+    void setValue(Object content) {
+        this.nodes.element().setValue(content);
+    }
+
+    @Override
+    void endNode() {
+        this.nodes.pop();
+    }
+
+    @Override
+    void appendNode(XmlNode node) {
+        this.nodes.element().appendChild(node);
+    }
+
+    XmlNode getCurrent() {
+        return this.nodes.element();
+    }
+
+    XmlNode getRoot() {
+        return root;
+    }
+}
@@ -1,98 +1,212 @@
 package xmlSaver;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayDeque;
-import java.util.List;
-import java.util.Map;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 class XmlNodeReader {
     private final File file;
-    private List<String> lines;
     private final ArrayDeque<XmlNode> nodes = new ArrayDeque<>();
+    private XmlMetrics metrics;
+    private XmlScratch scratch;
+    // primitive wrappers of the document's class table by type id, null for the other classes
+    private Class<?>[] typeWrappers;
 
     XmlNodeReader(String savePath) {
         this.file = new File(savePath);
     }
 
+    XmlNodeReader() {
+        this.file = null;
+    }
+
     XmlNode load() {
         if (!this.file.exists()) {
             throw new IllegalArgumentException("file " + this.file.getPath() + " does not exist!");
         }
+        try (var stream = Files.newInputStream(this.file.toPath())) {
+            return load(stream);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    XmlNodeReader setMetrics(XmlMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    XmlNodeReader setScratch(XmlScratch scratch) {
+        this.scratch = scratch;
+        return this;
+    }
+
+    // the `classes` attribute of the document's root, for subtrees read without it
+    XmlNodeReader setClassTable(String classes) {
+        if (classes == null) {
+            this.typeWrappers = null;
+            return this;
+        }
+        var clazzNames = classes.split(" ");
+        this.typeWrappers = new Class<?>[clazzNames.length];
+        for (int i = 0; i < clazzNames.length; i++) {
+            this.typeWrappers[i] = XmlPrimitiveCodec.getWrapper(clazzNames[i]);
+        }
+        return this;
+    }
+
+    XmlNode load(InputStream stream) {
+        if (this.metrics == null) {
+            return parse(stream);
+        }
+        var start = System.nanoTime();
+        var io = this.metrics.getIoNanos();
+        var root = parse(this.metrics.count(stream));
+        // reading is timed by the counting stream, the remainder is decoding
+        this.metrics.addParse(System.nanoTime() - start - (this.metrics.getIoNanos() - io));
+        this.metrics.addNodes(countNodes(root));
+        return root;
+    }
+
+    XmlNode load(Reader reader) {
+        if (this.metrics == null) {
+            return parse(reader);
+        }
+        var start = System.nanoTime();
+        var root = parse(reader);
+        this.metrics.addParse(System.nanoTime() - start);
+        this.metrics.addNodes(countNodes(root));
+        return root;
+    }
+
+    private XmlNode parse(InputStream stream) {
+        InputStream decompressed = null;
         try {
-            this.lines = Files.
-                readAllLines(Paths.get(this.file.getPath())).stream().
-                map(x -> x.replaceFirst("^\\s+", "")).
-                collect(Collectors.toList());
+            // compressed documents are inflated while they are parsed
+            decompressed = XmlCompression.decompress(stream);
+            var input = decompressed.markSupported() ? decompressed : new BufferedInputStream(decompressed);
+            if (XmlBinaryDecoder.isBinary(input)) {
+                return new XmlBinaryDecoder(input).load();
+            }
+            // a stream handed in by the caller may go on after the document, a pipe or socket need not even end
+            return parse(new InputStreamReader(
+                this.file != null ? input : new XmlDocumentInputStream(input),
+                StandardCharsets.UTF_8
+            ));
         } catch (IOException e) {
             throw new IllegalStateException(e);
+        } finally {
+            if (decompressed != null) {
+                XmlCompression.release(decompressed);
+            }
         }
-        processLines();
-        return this.nodes.pop();
     }
 
-    private void processLines() {
-        for (String line : this.lines) {
-            var startTagMatcher = Pattern.compile("^<?([^<>/]+?)( [^<>/]+?)?>$").matcher(line);
-            if (startTagMatcher.matches()) {
-                var newNode = new XmlNode(startTagMatcher.group(1));
-                parseAttributes(startTagMatcher.group(2)).
-                    forEach(x -> newNode.appendAttribute(x.getKey(), x.getValue()));
-                if (!this.nodes.isEmpty()) {
-                    this.nodes.peek().appendChild(newNode);
+    private XmlNode parse(Reader reader) {
+        var parser = new XmlPullParser(reader, this.scratch != null ? this.scratch : new XmlScratch());
+        XmlNode root = null;
+        Object text = null;
+        for (int event = parser.next(); event != XmlPullParser.END_DOCUMENT; event = parser.next()) {
+            switch (event) {
+                case XmlPullParser.START_TAG: {
+                    var newNode = new XmlNode(parser.getName());
+                    for (int i = 0; i < parser.getAttributeCount(); i++) {
+                        newNode.appendAttribute(parser.getAttributeName(i), parser.getAttributeValue(i));
+                    }
+                    if (!this.nodes.isEmpty()) {
+                        this.nodes.peek().appendChild(newNode);
+                    } else {
+                        root = newNode;
+                        if (newNode.hasAttribute("classes")) {
+                            setClassTable(newNode.getAttribute("classes"));
+                        }
+                    }
+                    this.nodes.push(newNode);
+                    text = null;
+                    break;
                 }
-                this.nodes.push(newNode);
-                continue;
-            }
-            var endTagMatcher = Pattern.compile("^</.+?>$").matcher(line);
-            if (endTagMatcher.matches()) {
-                if (this.nodes.size() > 1) {
-                    this.nodes.pop();
+                case XmlPullParser.END_TAG: {
+                    var node = this.nodes.poll();
+                    if (node == null || !node.getNodeName().equals(parser.getName())) {
+                        throw unexpected(parser, "end tag </" + parser.getName() + ">");
+                    }
+                    if (text != null && !node.hasChildNodes()) {
+                        node.setValue(text);
+                    }
+                    text = null;
+                    if (this.nodes.isEmpty()) {
+                        // nothing behind the root element is read, the input does not have to end there
+                        return root;
+                    }
+                    break;
+                }
+                case XmlPullParser.TEXT: {
+                    if (this.nodes.isEmpty() || this.nodes.peek().hasChildNodes()) {
+                        if (!parser.isWhitespace()) {
+                            throw unexpected(parser, "text `" + parser.getText().strip() + "`");
+                        }
+                    } else {
+                        text = readText(parser, this.nodes.peek());
+                    }
+                    break;
                 }
-                continue;
-            }
-            var emptyTag = Pattern.compile("^<(.+?)( [^<>/]+?)?/>$").matcher(line);
-            if (emptyTag.matches()) {
-                var newNode = new XmlNode(emptyTag.group(1));
-                parseAttributes(emptyTag.group(2)).
-                    forEach(x -> newNode.appendAttribute(x.getKey(), x.getValue()));
-                assert this.nodes.peek() != null;
-                this.nodes.peek().appendChild(newNode);
-                continue;
-            }
-            var defaultTag = Pattern.compile("^<(.+?)( [^<>/]+?)?>(.+?)</\\1>$").matcher(line);
-            if (defaultTag.matches())
-            {
-                var newNode = new XmlNode(defaultTag.group(1), defaultTag.group(3));
-                parseAttributes(defaultTag.group(2)).
-                    forEach(x -> newNode.appendAttribute(x.getKey(), x.getValue()));
-                assert this.nodes.peek() != null;
-                this.nodes.peek().appendChild(newNode);
-                continue;
             }
-            throw new IllegalStateException(
-                String.format("unknown token at line <%d> - `%s`", lines.indexOf(line), line)
-            );
         }
+        throw unexpected(parser, "end of document");
+    }
+
+    // primitive leaves and byte arrays are decoded from the parser's buffer, the node keeps the decoded value
+    private Object readText(XmlPullParser parser, XmlNode node) {
+        if (XmlPrimitiveArrays.BASE64.equals(node.getAttribute("encoding"))) {
+            return XmlPrimitiveArrays.decodeBase64(parser.getTextChars());
+        }
+        // arrays name their primitive component type and carry a dimension
+        var wrapper = node.hasAttribute("dimension") ? null : getWrapper(node);
+        if (wrapper == null || parser.isWhitespace() && wrapper != Character.class) {
+            return parser.getText();
+        }
+        try {
+            return XmlPrimitiveCodec.decode(wrapper, parser.getTextChars());
+        } catch (NumberFormatException e) {
+            throw unexpected(parser, "value `" + parser.getText().strip() + "` of " + wrapper.getName());
+        }
+    }
+
+    // leaves of a class table document name their class by type id
+    private Class<?> getWrapper(XmlNode node) {
+        var typeId = node.getAttribute("type");
+        if (typeId == null) {
+            return XmlPrimitiveCodec.getWrapper(node.getAttribute("class"));
+        }
+        if (this.typeWrappers == null) {
+            return null;
+        }
+        try {
+            var index = Integer.parseInt(typeId);
+            return index >= 0 && index < this.typeWrappers.length ? this.typeWrappers[index] : null;
+        } catch (NumberFormatException e) {
+            // left to the deserializer, which reports the broken reference
+            return null;
+        }
+    }
+
+    private static long countNodes(XmlNode node) {
+        long count = 1;
+        for (XmlNode childNode : node.getChildNodes()) {
+            count += countNodes(childNode);
+        }
+        return count;
     }
 
-    private List<Map.Entry<String, String>> parseAttributes(String attrString) {
-        //noinspection OptionalGetWithoutIsPresent
-        return Pattern.compile(" (.+?=\".+?\")").
-            matcher(attrString != null ? attrString : "").
-            results().
-            map(x ->
-                Pattern.compile("(.+?)=\"(.+?)\"").
-                    matcher(x.group(1)).
-                    results().
-                    findFirst().
-                    get()
-            ).
-            map(x -> Map.entry(x.group(1), x.group(2))).
-            collect(Collectors.toList());
+    private static IllegalStateException unexpected(XmlPullParser parser, String token) {
+        return new IllegalStateException(
+            String.format("unknown token at line <%d> - %s", parser.getLineNumber(), token)
+        );
     }
 }
@@ -0,0 +1,9 @@
+package xmlSaver;
+
+abstract class XmlNodeSink {
+    abstract void beginNode(String nodeName);
+    abstract void appendAttribute(String attrName, String attrValue);
+    abstract void setValue(Object content);
+    abstract void endNode();
+    abstract void appendNode(XmlNode node);
+}
@@ -1,11 +1,8 @@
 package xmlSaver;
 
-import java.util.Map;
-import java.util.Set;
-
+// attributes arrive as name/value pairs in the first attributeCount * 2 slots, the array is only valid during the call
 abstract class XmlNodeVisitor {
-    abstract void beginNode(String nodeName, Set<Map.Entry<String, String>> attributes);
-    abstract void beginNode(String nodeName, String nodeValue, Set<Map.Entry<String, String>> attributes);
+    abstract void beginNode(String nodeName, String[] attributes, int attributeCount);
+    abstract void beginNode(String nodeName, Object nodeValue, String[] attributes, int attributeCount);
     abstract void endNode();
 }
-
@@ -2,103 +2,391 @@ package xmlSaver;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayDeque;
-import java.util.Map;
-import java.util.Set;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.DeflaterOutputStream;
 
 class XmlNodeWriter extends XmlNodeVisitor {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
     private final File file;
+    private final OutputStream stream;
+    private final Writer writer;
     private final String indentationString;
+    private XmlCompression compression = XmlCompression.NONE;
+    private int compressionLevel;
+    private XmlFormat format = XmlFormat.XML;
+    private XmlMetrics metrics;
 
-    private PrintWriter pw;
+    private Path temporaryPath;
+    private Writer textOutput;
+    private XmlScratch scratch;
+    private StringBuilder line;
+    private char[] chars;
+    private OutputStream output;
+    private DeflaterOutputStream compressor;
+    private XmlBinaryEncoder binary;
     private int depth;
     private final ArrayDeque<String> conclusions = new ArrayDeque<>();
 
     XmlNodeWriter(String savePath) {
         this.file = new File(savePath);
+        this.stream = null;
+        this.writer = null;
+        this.indentationString = "\t";
+        this.depth = 0;
+    }
+
+    XmlNodeWriter(Writer writer) {
+        this.file = null;
+        this.stream = null;
+        this.writer = writer;
+        this.indentationString = "\t";
+        this.depth = 0;
+    }
+
+    XmlNodeWriter(OutputStream stream) {
+        this.file = null;
+        this.stream = stream;
+        this.writer = null;
         this.indentationString = "\t";
         this.depth = 0;
     }
 
+    XmlNodeWriter(WritableByteChannel channel) {
+        this(Channels.newOutputStream(channel));
+    }
+
+    XmlNodeWriter setCompression(XmlCompression compression, int compressionLevel) {
+        if (compression != XmlCompression.NONE && this.writer != null) {
+            throw new IllegalArgumentException("compressed documents cannot be written to a character stream");
+        }
+        this.compression = compression;
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    XmlNodeWriter setFormat(XmlFormat format) {
+        if (format == XmlFormat.BINARY && this.writer != null) {
+            throw new IllegalArgumentException("binary documents cannot be written to a character stream");
+        }
+        this.format = format;
+        return this;
+    }
+
+    XmlNodeWriter setMetrics(XmlMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    XmlNodeWriter setScratch(XmlScratch scratch) {
+        this.scratch = scratch;
+        return this;
+    }
+
     void save(XmlNode node) {
-        if (this.file.exists()) {
-            if (!this.file.delete()) {
-                throw new IllegalArgumentException("old file " + this.file.getPath() + " cannot be deleted!");
-            }
+        open();
+        try {
+            node.visit(this);
+        } catch (RuntimeException | Error e) {
+            abort();
+            throw e;
         }
+        close();
+    }
+
+    void open() {
+        // lines are assembled in the scratch builder and handed to the character stream in chunks
+        var scratch = this.scratch != null ? this.scratch : new XmlScratch();
+        this.line = scratch.getText();
+        this.chars = scratch.getChars();
+        if (this.writer != null) {
+            this.textOutput = this.writer;
+            return;
+        }
+        OutputStream fileOutput = null;
         try {
-            if (!this.file.createNewFile()) {
-                throw new IllegalArgumentException("file " + this.file.getPath() + " cannot be created!");
+            var out = this.stream;
+            if (this.file != null) {
+                // the document is written next to the target and moved over it once it is complete,
+                // a save failing halfway leaves the previous file as it was
+                this.temporaryPath = Path.of(
+                    this.file.getPath() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp"
+                );
+                fileOutput = Files.newOutputStream(this.temporaryPath, StandardOpenOption.CREATE_NEW);
+                out = fileOutput;
+            }
+            if (this.metrics != null) {
+                // counted below the compressor, so the bytes are the ones that reach the target
+                out = this.metrics.count(out);
+            }
+            if (this.compression != XmlCompression.NONE) {
+                this.compressor = this.compression.compress(out, this.compressionLevel);
+                out = this.compressor;
+            }
+            this.output = out;
+            if (this.format == XmlFormat.BINARY) {
+                this.binary = new XmlBinaryEncoder(out);
+            } else {
+                this.textOutput = new OutputStreamWriter(out, StandardCharsets.UTF_8);
             }
-            pw = new PrintWriter(this.file);
         } catch (IOException e) {
+            if (fileOutput != null) {
+                try {
+                    fileOutput.close();
+                } catch (IOException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            releaseCompressor();
+            deleteTemporaryFile();
             throw new IllegalStateException(e);
         }
-        node.visit(this);
-        this.pw.close();
     }
 
-    @Override
-    void beginNode(String nodeName, Set<Map.Entry<String, String>> attributes) {
-        var sub = String.format(
-            "%s<%s%s>",
-            this.indentationString.repeat(this.depth),
-            nodeName,
-            computeAttributesString(attributes)
-        );
-        var conclusion = String.format(
-            "%s</%s>",
-            this.indentationString.repeat(this.depth),
-            nodeName
+    void close() {
+        if (this.binary != null) {
+            closeBinary();
+            return;
+        }
+        try {
+            flushText();
+            // streams handed in by the caller are only flushed, the caller stays responsible for closing them
+            if (this.file == null) {
+                this.textOutput.flush();
+                if (this.compressor != null) {
+                    this.compressor.finish();
+                    this.compressor.flush();
+                }
+            } else {
+                this.textOutput.close();
+                replaceFile();
+            }
+        } catch (IOException e) {
+            deleteTemporaryFile();
+            throw writeError(e);
+        } finally {
+            releaseCompressor();
+        }
+    }
+
+    // after a failed save, the caller's stream is left as far as it got and a file keeps its previous content
+    void abort() {
+        try {
+            if (this.file != null && this.output != null) {
+                this.output.close();
+            }
+        } catch (IOException e) {
+            // the document is discarded anyway
+        } finally {
+            releaseCompressor();
+            deleteTemporaryFile();
+        }
+    }
+
+    private void replaceFile() throws IOException {
+        Files.move(
+            this.temporaryPath,
+            this.file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE
         );
-        this.conclusions.push(conclusion);
-        this.pw.println(sub);
+        this.temporaryPath = null;
+    }
+
+    private void deleteTemporaryFile() {
+        if (this.temporaryPath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(this.temporaryPath);
+        } catch (IOException e) {
+            // nothing left to report it to, the save already failed
+        }
+        this.temporaryPath = null;
+    }
+
+    private void closeBinary() {
+        try {
+            this.binary.flush();
+            if (this.file != null) {
+                this.output.close();
+                replaceFile();
+                return;
+            }
+            if (this.compressor != null) {
+                this.compressor.finish();
+            }
+            this.output.flush();
+        } catch (IOException e) {
+            deleteTemporaryFile();
+            throw writeError(e);
+        } finally {
+            releaseCompressor();
+        }
+    }
+
+    private void releaseCompressor() {
+        if (this.compressor != null) {
+            XmlCompression.release(this.compressor);
+            this.compressor = null;
+        }
+    }
+
+    @Override
+    void beginNode(String nodeName, String[] attributes, int attributeCount) {
+        if (this.metrics != null) {
+            this.metrics.addNode();
+        }
+        if (this.binary != null) {
+            this.binary.beginNode(nodeName, attributes, attributeCount);
+            return;
+        }
+        indent();
+        this.line.append('<').append(nodeName);
+        appendAttributes(attributes, attributeCount);
+        this.line.append('>').append(LINE_SEPARATOR);
+        this.conclusions.push(nodeName);
         this.depth++;
+        emit();
     }
 
     @Override
-    void beginNode(String nodeName, String nodeValue, Set<Map.Entry<String, String>> attributes) {
-        String sub;
-        if (nodeValue == null || nodeValue.isEmpty()) {
-            sub = String.format(
-                "%s<%s%s/>",
-                this.indentationString.repeat(this.depth),
-                nodeName,
-                computeAttributesString(attributes)
-            );
+    void beginNode(String nodeName, Object nodeValue, String[] attributes, int attributeCount) {
+        if (this.metrics != null) {
+            this.metrics.addNode();
+        }
+        if (this.binary != null) {
+            this.binary.beginNode(nodeName, nodeValue, attributes, attributeCount);
+            return;
+        }
+        indent();
+        this.line.append('<').append(nodeName);
+        appendAttributes(attributes, attributeCount);
+        if (nodeValue == null || nodeValue instanceof String && ((String) nodeValue).isEmpty()) {
+            this.line.append("/>");
         } else {
-            sub = String.format(
-                "%s<%s%s>%s</%s>",
-                this.indentationString.repeat(this.depth),
-                nodeName,
-                computeAttributesString(attributes),
-                nodeValue,
-                nodeName
-            );
+            this.line.append('>');
+            if (nodeValue instanceof String) {
+                appendText((String) nodeValue);
+            } else if (nodeValue instanceof byte[]) {
+                appendBase64((byte[]) nodeValue);
+            } else {
+                // primitives are formatted straight into the line, no string is made for them
+                XmlPrimitiveCodec.append(this.line, nodeValue);
+            }
+            this.line.append("</").append(nodeName).append('>');
         }
+        this.line.append(LINE_SEPARATOR);
         this.conclusions.push("");
-        this.pw.println(sub);
         this.depth++;
+        emit();
     }
 
     @Override
     void endNode() {
+        if (this.binary != null) {
+            this.binary.endNode();
+            return;
+        }
         var conclusion = this.conclusions.isEmpty()? null : this.conclusions.pop();
+        this.depth = this.depth > 0 ? this.depth - 1 : 0;
         if (conclusion != null && !conclusion.isEmpty()) {
-            this.pw.println(conclusion);
+            indent();
+            this.line.append("</").append(conclusion).append('>').append(LINE_SEPARATOR);
+            emit();
+        }
+    }
+
+    private void indent() {
+        for (int i = 0; i < this.depth; i++) {
+            this.line.append(this.indentationString);
         }
-        this.depth = this.depth > 0 ? this.depth - 1 : 0;
     }
 
-    private static String computeAttributesString(Set<Map.Entry<String, String>> attributes) {
-        if (attributes.isEmpty()) {
-            return "";
+    private void appendAttributes(String[] attributes, int attributeCount) {
+        for (int i = 0; i < attributeCount * 2; i += 2) {
+            this.line.append(' ').append(attributes[i]).append("=\"").append(attributes[i + 1]).append('"');
         }
-        return attributes.stream().reduce(
-            "",
-            (x, y) -> x + String.format(" %s=\"%s\"", y.getKey(), y.getValue()),
-            (x, y) -> x + y
+    }
+
+    // large values pass through the line a chunk at a time, it never holds more than a buffer of them
+    private void appendText(String value) {
+        var length = value.length();
+        for (int start = 0; start < length; ) {
+            var end = Math.min(length, start + this.chars.length);
+            for (int i = start; i < end; i++) {
+                var c = value.charAt(i);
+                if (c == '<') {
+                    this.line.append(value, start, i).append("&lt;");
+                    start = i + 1;
+                } else if (c == '>') {
+                    this.line.append(value, start, i).append("&gt;");
+                    start = i + 1;
+                } else if (c == '&') {
+                    this.line.append(value, start, i).append("&amp;");
+                    start = i + 1;
+                } else if (c == '\r') {
+                    // a bare carriage return would not survive line separator conversions of the document
+                    this.line.append(value, start, i).append("&#13;");
+                    start = i + 1;
+                }
+            }
+            this.line.append(value, start, end);
+            start = end;
+            emit();
+        }
+    }
+
+    private void appendBase64(byte[] value) {
+        var encoder = Base64.getEncoder();
+        // whole groups of three bytes, so that the chunks join into one padded encoding
+        var chunk = this.chars.length / 4 * 3;
+        for (int offset = 0; offset < value.length; offset += chunk) {
+            var encoded = encoder.encode(ByteBuffer.wrap(value, offset, Math.min(chunk, value.length - offset)));
+            while (encoded.hasRemaining()) {
+                this.line.append((char) encoded.get());
+            }
+            emit();
+        }
+    }
+
+    private void emit() {
+        if (this.line.length() >= this.chars.length) {
+            try {
+                flushText();
+            } catch (IOException e) {
+                throw writeError(e);
+            }
+        }
+    }
+
+    private void flushText() throws IOException {
+        var length = this.line.length();
+        for (int i = 0; i < length; i += this.chars.length) {
+            var count = Math.min(this.chars.length, length - i);
+            this.line.getChars(i, i + count, this.chars, 0);
+            this.textOutput.write(this.chars, 0, count);
+        }
+        this.line.setLength(0);
+    }
+
+    private IllegalStateException writeError(IOException e) {
+        return new IllegalStateException(
+            this.file == null ? "document cannot be written!" : "file " + this.file.getPath() + " cannot be written!",
+            e
         );
     }
 }
@@ -0,0 +1,197 @@
+package xmlSaver;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+class XmlPrimitiveArrays {
+    static final String PACKED = "packed";
+    static final String BASE64 = "base64";
+
+    private static final char SEPARATOR = ',';
+    private static final byte[] BASE64_DIGITS = new byte[128];
+
+    private XmlPrimitiveArrays() {
+    }
+
+    static boolean isPackable(Class<?> arrayClazz) {
+        return arrayClazz.isArray() && arrayClazz.getComponentType().isPrimitive();
+    }
+
+    static String getEncoding(Class<?> arrayClazz) {
+        return arrayClazz == byte[].class ? BASE64 : PACKED;
+    }
+
+    static String encode(Object array) {
+        if (array instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) array);
+        }
+        var builder = new StringBuilder();
+        if (array instanceof int[]) {
+            for (int e : (int[]) array) {
+                builder.append(e).append(SEPARATOR);
+            }
+        } else if (array instanceof long[]) {
+            for (long e : (long[]) array) {
+                builder.append(e).append(SEPARATOR);
+            }
+        } else if (array instanceof double[]) {
+            for (double e : (double[]) array) {
+                builder.append(e).append(SEPARATOR);
+            }
+        } else if (array instanceof float[]) {
+            for (float e : (float[]) array) {
+                builder.append(e).append(SEPARATOR);
+            }
+        } else if (array instanceof short[]) {
+            for (short e : (short[]) array) {
+                builder.append(e).append(SEPARATOR);
+            }
+        } else if (array instanceof char[]) {
+            for (char e : (char[]) array) {
+                builder.append((int) e).append(SEPARATOR);
+            }
+        } else if (array instanceof boolean[]) {
+            for (boolean e : (boolean[]) array) {
+                builder.append(e ? '1' : '0').append(SEPARATOR);
+            }
+        } else {
+            throw new IllegalArgumentException(array.getClass() + " isn`t a primitive array");
+        }
+        if (builder.length() > 0) {
+            builder.setLength(builder.length() - 1);
+        }
+        return builder.toString();
+    }
+
+    static Object decode(Class<?> componentType, String encoding, String value) {
+        if (BASE64.equals(encoding)) {
+            return value == null ? new byte[0] : Base64.getMimeDecoder().decode(value);
+        }
+        if (!PACKED.equals(encoding)) {
+            throw new IllegalStateException("unknown array encoding `" + encoding + "`");
+        }
+        var text = value == null ? "" : value.strip();
+        var length = countItems(text);
+        if (componentType == Integer.TYPE) {
+            var array = new int[length];
+            for (int i = 0, start = 0; i < length; i++) {
+                var end = nextSeparator(text, start);
+                array[i] = Integer.parseInt(text, start, end, 10);
+                start = end + 1;
+            }
+            return array;
+        } else if (componentType == Long.TYPE) {
+            var array = new long[length];
+            for (int i = 0, start = 0; i < length; i++) {
+                var end = nextSeparator(text, start);
+                array[i] = Long.parseLong(text, start, end, 10);
+                start = end + 1;
+            }
+            return array;
+        } else if (componentType == Double.TYPE) {
+            var array = new double[length];
+            for (int i = 0, start = 0; i < length; i++) {
+                var end = nextSeparator(text, start);
+                array[i] = XmlPrimitiveCodec.parseDouble(text, start, end);
+                start = end + 1;
+            }
+            return array;
+        } else if (componentType == Float.TYPE) {
+            var array = new float[length];
+            for (int i = 0, start = 0; i < length; i++) {
+                var end = nextSeparator(text, start);
+                array[i] = XmlPrimitiveCodec.parseFloat(text, start, end);
+                start = end + 1;
+            }
+            return array;
+        } else if (componentType == Short.TYPE) {
+            var array = new short[length];
+            for (int i = 0, start = 0; i < length; i++) {
+                var end = nextSeparator(text, start);
+                array[i] = (short) Integer.parseInt(text, start, end, 10);
+                start = end + 1;
+            }
+            return array;
+        } else if (componentType == Byte.TYPE) {
+            var array = new byte[length];
+            for (int i = 0, start = 0; i < length; i++) {
+                var end = nextSeparator(text, start);
+                array[i] = (byte) Integer.parseInt(text, start, end, 10);
+                start = end + 1;
+            }
+            return array;
+        } else if (componentType == Character.TYPE) {
+            var array = new char[length];
+            for (int i = 0, start = 0; i < length; i++) {
+                var end = nextSeparator(text, start);
+                array[i] = (char) Integer.parseInt(text, start, end, 10);
+                start = end + 1;
+            }
+            return array;
+        } else if (componentType == Boolean.TYPE) {
+            var array = new boolean[length];
+            for (int i = 0, start = 0; i < length; i++) {
+                var end = nextSeparator(text, start);
+                array[i] = text.charAt(start) == '1';
+                start = end + 1;
+            }
+            return array;
+        }
+        throw new IllegalStateException(componentType + " isn`t a primitive type");
+    }
+
+    // a MIME style decode straight from the parser's buffer: characters outside the alphabet, padding included, are skipped
+    static byte[] decodeBase64(CharSequence text) {
+        var length = text.length();
+        long digits = 0;
+        for (int i = 0; i < length; i++) {
+            var c = text.charAt(i);
+            if (c < BASE64_DIGITS.length && BASE64_DIGITS[c] >= 0) {
+                digits++;
+            }
+        }
+        var value = new byte[(int) (digits * 6 / 8)];
+        int bits = 0;
+        int buffer = 0;
+        for (int i = 0, position = 0; i < length && position < value.length; i++) {
+            var c = text.charAt(i);
+            var digit = c < BASE64_DIGITS.length ? BASE64_DIGITS[c] : -1;
+            if (digit < 0) {
+                continue;
+            }
+            buffer = buffer << 6 | digit;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                value[position++] = (byte) (buffer >> bits);
+            }
+        }
+        return value;
+    }
+
+    private static int countItems(String text) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        var count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == SEPARATOR) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int nextSeparator(String text, int start) {
+        var end = text.indexOf(SEPARATOR, start);
+        return end < 0 ? text.length() : end;
+    }
+
+    static {
+        Arrays.fill(BASE64_DIGITS, (byte) -1);
+        var alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_DIGITS[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package xmlSaver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// text form of primitive and wrapper values, written into the writer's buffer and parsed in place from a char sequence
+class XmlPrimitiveCodec {
+    // a char that cannot stand in element text on its own is written as `#` and its code
+    private static final char CHAR_CODE = '#';
+
+    private static final Map<String, Class<?>> wrappers = new HashMap<>();
+    private static final double[] DOUBLE_POWERS = new double[23];
+    private static final float[] FLOAT_POWERS = new float[11];
+
+    private XmlPrimitiveCodec() {
+    }
+
+    // the wrapper type for a saved class name, null for anything that is not a primitive or a wrapper
+    static Class<?> getWrapper(String clazzName) {
+        return clazzName != null ? wrappers.get(clazzName) : null;
+    }
+
+    static void append(StringBuilder builder, Object value) {
+        // StringBuilder formats numbers straight into its own storage, the round trip of Double.toString included
+        if (value instanceof Integer) {
+            builder.append((int) (Integer) value);
+        } else if (value instanceof Long) {
+            builder.append((long) (Long) value);
+        } else if (value instanceof Double) {
+            builder.append((double) (Double) value);
+        } else if (value instanceof Float) {
+            builder.append((float) (Float) value);
+        } else if (value instanceof Boolean) {
+            builder.append((boolean) (Boolean) value);
+        } else if (value instanceof Short || value instanceof Byte) {
+            builder.append(((Number) value).intValue());
+        } else if (value instanceof Character) {
+            appendChar(builder, (Character) value);
+        } else {
+            builder.append(value);
+        }
+    }
+
+    // the value of a node as the wrapper of clazz, parsed and binary documents usually hold it boxed already
+    static Object decode(Class<?> clazz, XmlNode xmlDescription) {
+        var primitive = xmlDescription.getPrimitiveValue();
+        if (primitive != null && primitive.getClass() == toWrapper(clazz)) {
+            return primitive;
+        }
+        return decode(clazz, xmlDescription.getNodeValue());
+    }
+
+    static Object decode(Class<?> clazz, CharSequence text) {
+        if (text == null) {
+            text = "";
+        }
+        var start = start(text);
+        var end = end(text, start);
+        if (clazz == Integer.class || clazz == Integer.TYPE) return Integer.parseInt(text, start, end, 10);
+        if (clazz == Long.class || clazz == Long.TYPE) return Long.parseLong(text, start, end, 10);
+        if (clazz == Double.class || clazz == Double.TYPE) return parseDouble(text, start, end);
+        if (clazz == Float.class || clazz == Float.TYPE) return parseFloat(text, start, end);
+        if (clazz == Boolean.class || clazz == Boolean.TYPE) return parseBoolean(text, start, end);
+        if (clazz == Short.class || clazz == Short.TYPE) return (short) parseInt(text, start, end, Short.MIN_VALUE, Short.MAX_VALUE);
+        if (clazz == Byte.class || clazz == Byte.TYPE) return (byte) parseInt(text, start, end, Byte.MIN_VALUE, Byte.MAX_VALUE);
+        if (clazz == Character.class || clazz == Character.TYPE) return parseChar(text);
+        throw new IllegalArgumentException(clazz + " isn`t a primitive type");
+    }
+
+    static char parseChar(CharSequence text) {
+        // a single char is taken as it is, surrounding whitespace only matters when it is the char itself
+        if (text != null && text.length() == 1) {
+            return text.charAt(0);
+        }
+        var start = text != null ? start(text) : 0;
+        var end = text != null ? end(text, start) : 0;
+        if (end - start == 1) {
+            return text.charAt(start);
+        }
+        if (end - start > 1 && text.charAt(start) == CHAR_CODE) {
+            return (char) parseInt(text, start + 1, end, Character.MIN_VALUE, Character.MAX_VALUE);
+        }
+        throw new NumberFormatException("`" + text + "` isn`t a char");
+    }
+
+    static boolean parseBoolean(CharSequence text, int start, int end) {
+        // the same leniency as Boolean.parseBoolean, anything but `true` in any case is false
+        if (end - start != 4) {
+            return false;
+        }
+        return Character.toLowerCase(text.charAt(start)) == 't' &&
+            Character.toLowerCase(text.charAt(start + 1)) == 'r' &&
+            Character.toLowerCase(text.charAt(start + 2)) == 'u' &&
+            Character.toLowerCase(text.charAt(start + 3)) == 'e';
+    }
+
+    static double parseDouble(CharSequence text, int start, int end) {
+        var value = parseDecimal(text, start, end, false);
+        return !Double.isNaN(value) ? value : Double.parseDouble(text.subSequence(start, end).toString());
+    }
+
+    static float parseFloat(CharSequence text, int start, int end) {
+        var value = parseDecimal(text, start, end, true);
+        return !Double.isNaN(value) ? (float) value : Float.parseFloat(text.subSequence(start, end).toString());
+    }
+
+    private static void appendChar(StringBuilder builder, char value) {
+        if (value > ' ' && value != '<' && value != '>' && value != '&' && value != 0x7f && !Character.isSurrogate(value)) {
+            builder.append(value);
+        } else {
+            builder.append(CHAR_CODE).append((int) value);
+        }
+    }
+
+    private static int parseInt(CharSequence text, int start, int end, int min, int max) {
+        var value = Integer.parseInt(text, start, end, 10);
+        if (value < min || value > max) {
+            throw new NumberFormatException("value `" + text.subSequence(start, end) + "` is out of range");
+        }
+        return value;
+    }
+
+    // decimals whose digits fit the mantissa exactly and whose power of ten is exact are one correctly rounded
+    // multiplication or division, NaN hands everything else (NaN and Infinity themselves included) to the JDK
+    private static double parseDecimal(CharSequence text, int start, int end, boolean single) {
+        var i = start;
+        var negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i++) == '-';
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        var hasDigits = false;
+        var fraction = false;
+        for (; i < end; i++) {
+            var c = text.charAt(i);
+            if (c == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                break;
+            }
+            hasDigits = true;
+            if ((mantissa != 0 || c != '0') && ++digits > 18) {
+                return Double.NaN;
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (fraction) {
+                exponent--;
+            }
+        }
+        if (!hasDigits) {
+            return Double.NaN;
+        }
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            var negativeExponent = false;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i++) == '-';
+            }
+            int value = 0;
+            var exponentStart = i;
+            for (; i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9'; i++) {
+                if (value < 10000) {
+                    value = value * 10 + (text.charAt(i) - '0');
+                }
+            }
+            if (i == exponentStart) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (single) {
+            if (mantissa > 1 << 24 || exponent < -10 || exponent > 10) {
+                return Double.NaN;
+            }
+            var value = (float) mantissa;
+            value = exponent < 0 ? value / FLOAT_POWERS[-exponent] : value * FLOAT_POWERS[exponent];
+            return negative ? -value : value;
+        }
+        if (mantissa > 1L << 53 || exponent < -22 || exponent > 22) {
+            return Double.NaN;
+        }
+        var value = (double) mantissa;
+        value = exponent < 0 ? value / DOUBLE_POWERS[-exponent] : value * DOUBLE_POWERS[exponent];
+        return negative ? -value : value;
+    }
+
+    private static int start(CharSequence text) {
+        var start = 0;
+        while (start < text.length() && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int end(CharSequence text, int start) {
+        var end = text.length();
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static Class<?> toWrapper(Class<?> clazz) {
+        return clazz.isPrimitive() ? wrappers.get(clazz.getName()) : clazz;
+    }
+
+    static {
+        wrappers.put("int", Integer.class);
+        wrappers.put("long", Long.class);
+        wrappers.put("double", Double.class);
+        wrappers.put("float", Float.class);
+        wrappers.put("boolean", Boolean.class);
+        wrappers.put("char", Character.class);
+        wrappers.put("byte", Byte.class);
+        wrappers.put("short", Short.class);
+        for (var wrapper : wrappers.values().toArray(new Class<?>[0])) {
+            wrappers.put(wrapper.getName(), wrapper);
+        }
+        DOUBLE_POWERS[0] = 1;
+        for (int i = 1; i < DOUBLE_POWERS.length; i++) {
+            DOUBLE_POWERS[i] = DOUBLE_POWERS[i - 1] * 10;
+        }
+        FLOAT_POWERS[0] = 1;
+        for (int i = 1; i < FLOAT_POWERS.length; i++) {
+            FLOAT_POWERS[i] = FLOAT_POWERS[i - 1] * 10;
+        }
+    }
+}
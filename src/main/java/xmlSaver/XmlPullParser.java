@@ -0,0 +1,403 @@
+package xmlSaver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+class XmlPullParser {
+    static final int START_TAG = 1;
+    static final int END_TAG = 2;
+    static final int TEXT = 3;
+    static final int END_DOCUMENT = 4;
+
+    private static final String CDATA_START = "<![CDATA[";
+    private static final String CDATA_END = "]]>";
+    // longest entity the parser decodes, `&#x10FFFF;` without its ampersand
+    private static final int ENTITY_LENGTH = 9;
+
+    private final Reader reader;
+    private final XmlScratch scratch;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    private int line = 1;
+
+    private final StringBuilder text;
+    private boolean whitespace;
+    private String name;
+    private String[] attributeNames = new String[4];
+    private String[] attributeValues = new String[4];
+    private int attributeCount;
+    private boolean emptyElement;
+
+    XmlPullParser(Reader reader) {
+        this(reader, new XmlScratch());
+    }
+
+    XmlPullParser(Reader reader, XmlScratch scratch) {
+        this.reader = reader;
+        this.scratch = scratch;
+        this.buffer = scratch.getChars();
+        this.text = scratch.getText();
+    }
+
+    int next() {
+        if (this.emptyElement) {
+            this.emptyElement = false;
+            this.attributeCount = 0;
+            return END_TAG;
+        }
+        while (true) {
+            int c = peek();
+            if (c == -1) {
+                return END_DOCUMENT;
+            }
+            if (c != '<' || lookingAt(CDATA_START)) {
+                readText();
+                return TEXT;
+            }
+            this.position++;
+            c = read();
+            if (c == -1) {
+                throw unexpected(c);
+            }
+            if (c == '/') {
+                this.name = readName();
+                skipWhitespace();
+                expect('>');
+                this.attributeCount = 0;
+                return END_TAG;
+            } else if (c == '?') {
+                skipPast("?>");
+            } else if (c == '!') {
+                if (peek() == '-') {
+                    expect('-');
+                    expect('-');
+                    skipPast("-->");
+                } else {
+                    skipPast(">");
+                }
+            } else {
+                this.position--;
+                readStartTag();
+                return START_TAG;
+            }
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getAttributeCount() {
+        return attributeCount;
+    }
+
+    String getAttributeName(int index) {
+        return attributeNames[index];
+    }
+
+    String getAttributeValue(int index) {
+        return attributeValues[index];
+    }
+
+    String getText() {
+        return text.toString();
+    }
+
+    // the parser's own buffer, valid until the next event
+    CharSequence getTextChars() {
+        return text;
+    }
+
+    boolean isWhitespace() {
+        return whitespace;
+    }
+
+    int getLineNumber() {
+        return line;
+    }
+
+    private void readStartTag() {
+        this.name = readName();
+        this.attributeCount = 0;
+        while (true) {
+            skipWhitespace();
+            int c = read();
+            if (c == '>') {
+                return;
+            }
+            if (c == '/') {
+                expect('>');
+                this.emptyElement = true;
+                return;
+            }
+            if (c == -1) {
+                throw unexpected(c);
+            }
+            this.position--;
+            var attrName = readName();
+            skipWhitespace();
+            expect('=');
+            skipWhitespace();
+            int quote = read();
+            if (quote != '"' && quote != '\'') {
+                throw unexpected(quote);
+            }
+            this.text.setLength(0);
+            for (c = read(); c != quote; c = read()) {
+                if (c == -1) {
+                    throw unexpected(c);
+                }
+                this.text.append((char) c);
+            }
+            addAttribute(attrName, this.scratch.share(this.text, false));
+        }
+    }
+
+    private void addAttribute(String attrName, String attrValue) {
+        if (this.attributeCount == this.attributeNames.length) {
+            this.attributeNames = Arrays.copyOf(this.attributeNames, this.attributeCount * 2);
+            this.attributeValues = Arrays.copyOf(this.attributeValues, this.attributeCount * 2);
+        }
+        this.attributeNames[this.attributeCount] = attrName;
+        this.attributeValues[this.attributeCount] = attrValue;
+        this.attributeCount++;
+    }
+
+    // text runs up to the next tag, entities are decoded and CDATA sections are taken into it verbatim
+    private void readText() {
+        this.text.setLength(0);
+        this.whitespace = true;
+        while (fill()) {
+            int start = this.position;
+            int end = start;
+            while (end < this.limit && this.buffer[end] != '<' && this.buffer[end] != '&') {
+                char c = this.buffer[end];
+                if (c == '\n') {
+                    this.line++;
+                } else if (this.whitespace && !Character.isWhitespace(c)) {
+                    this.whitespace = false;
+                }
+                end++;
+            }
+            this.text.append(this.buffer, start, end - start);
+            this.position = end;
+            if (end == this.limit) {
+                continue;
+            }
+            if (this.buffer[end] == '&') {
+                this.position++;
+                readEntity();
+                this.whitespace = false;
+            } else if (lookingAt(CDATA_START)) {
+                this.position += CDATA_START.length();
+                readCData();
+            } else {
+                return;
+            }
+        }
+    }
+
+    // documents written before values were escaped may hold a bare `&`, anything that is no known entity stays as it is
+    private void readEntity() {
+        var start = this.text.length();
+        this.text.append('&');
+        for (int c = peek(); c != -1 && c != ';' && this.text.length() - start <= ENTITY_LENGTH; c = peek()) {
+            if (!Character.isLetterOrDigit(c) && c != '#') {
+                return;
+            }
+            this.text.append((char) read());
+        }
+        if (peek() != ';') {
+            return;
+        }
+        var decoded = decodeEntity(start + 1);
+        if (decoded >= 0) {
+            read();
+            this.text.setLength(start);
+            this.text.appendCodePoint(decoded);
+        }
+    }
+
+    private int decodeEntity(int start) {
+        var length = this.text.length() - start;
+        if (length > 1 && this.text.charAt(start) == '#') {
+            var hex = this.text.charAt(start + 1) == 'x';
+            try {
+                var code = Integer.parseInt(this.text, start + (hex ? 2 : 1), this.text.length(), hex ? 16 : 10);
+                return Character.isValidCodePoint(code) ? code : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        if (isEntity(start, "lt")) return '<';
+        if (isEntity(start, "gt")) return '>';
+        if (isEntity(start, "amp")) return '&';
+        if (isEntity(start, "quot")) return '"';
+        if (isEntity(start, "apos")) return '\'';
+        return -1;
+    }
+
+    private boolean isEntity(int start, String name) {
+        if (this.text.length() - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (this.text.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readCData() {
+        var start = this.text.length();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw unexpected(c);
+            }
+            this.text.append((char) c);
+            if (this.whitespace && !Character.isWhitespace(c)) {
+                this.whitespace = false;
+            }
+            var length = this.text.length();
+            if (c == '>' && length - start >= CDATA_END.length() &&
+                this.text.charAt(length - 2) == ']' && this.text.charAt(length - 3) == ']') {
+                this.text.setLength(length - CDATA_END.length());
+                return;
+            }
+        }
+    }
+
+    private String readName() {
+        int c = peek();
+        if (c == -1 || !isNameChar(c)) {
+            throw unexpected(c);
+        }
+        this.text.setLength(0);
+        while (fill()) {
+            int start = this.position;
+            int end = start;
+            while (end < this.limit && isNameChar(this.buffer[end])) {
+                end++;
+            }
+            this.text.append(this.buffer, start, end - start);
+            this.position = end;
+            if (end < this.limit) {
+                break;
+            }
+        }
+        return this.scratch.share(this.text, true);
+    }
+
+    private void skipWhitespace() {
+        for (int c = peek(); c != -1 && Character.isWhitespace(c); c = peek()) {
+            read();
+        }
+    }
+
+    private void skipPast(String terminator) {
+        var window = new char[terminator.length()];
+        int seen = 0;
+        while (seen < window.length || !matches(window, terminator)) {
+            int c = read();
+            if (c == -1) {
+                throw unexpected(c);
+            }
+            System.arraycopy(window, 1, window, 0, window.length - 1);
+            window[window.length - 1] = (char) c;
+            seen++;
+        }
+    }
+
+    private static boolean matches(char[] window, String terminator) {
+        for (int i = 0; i < window.length; i++) {
+            if (window[i] != terminator.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expect(char expected) {
+        int c = read();
+        if (c != expected) {
+            throw unexpected(c);
+        }
+    }
+
+    private int peek() {
+        return fill() ? this.buffer[this.position] : -1;
+    }
+
+    private int read() {
+        if (!fill()) {
+            return -1;
+        }
+        char c = this.buffer[this.position++];
+        if (c == '\n') {
+            this.line++;
+        }
+        return c;
+    }
+
+    // keeps the buffered chars and reads more behind them until the prefix can be compared
+    private boolean lookingAt(String prefix) {
+        if (this.limit - this.position < prefix.length()) {
+            System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+            this.limit -= this.position;
+            this.position = 0;
+            try {
+                while (this.limit < prefix.length()) {
+                    var count = this.reader.read(this.buffer, this.limit, this.buffer.length - this.limit);
+                    if (count < 0) {
+                        return false;
+                    }
+                    this.limit += count;
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (this.buffer[this.position + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fill() {
+        if (this.position < this.limit) {
+            return true;
+        }
+        try {
+            int count;
+            do {
+                count = this.reader.read(this.buffer, 0, this.buffer.length);
+            } while (count == 0);
+            if (count < 0) {
+                return false;
+            }
+            this.position = 0;
+            this.limit = count;
+            return true;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private IllegalStateException unexpected(int c) {
+        return new IllegalStateException(String.format(
+            "unexpected %s at line <%d>",
+            c == -1 ? "end of document" : "character `" + (char) c + "`",
+            this.line
+        ));
+    }
+
+    private static boolean isNameChar(int c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':';
+    }
+}
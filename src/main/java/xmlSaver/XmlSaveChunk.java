@@ -0,0 +1,32 @@
+package xmlSaver;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+// items of a container saved by a worker serializer, objectIds inside stay local until the chunk is merged
+class XmlSaveChunk {
+    private final XmlNodeBuilder builder = new XmlNodeBuilder();
+    private final IdentityHashMap<XmlNode, Object> definitions = new IdentityHashMap<>();
+    private final HashMap<String, Object> objects = new HashMap<>();
+
+    XmlNodeBuilder getBuilder() {
+        return builder;
+    }
+
+    void define(String objectId, Object object) {
+        this.definitions.put(this.builder.getCurrent(), object);
+        this.objects.put(objectId, object);
+    }
+
+    Object getDefinition(XmlNode node) {
+        return this.definitions.get(node);
+    }
+
+    Object getObject(String objectId) {
+        return this.objects.get(objectId);
+    }
+
+    XmlNode[] getItems() {
+        return this.builder.getRoot().getChildNodes("item");
+    }
+}
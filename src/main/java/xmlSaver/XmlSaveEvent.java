@@ -0,0 +1,9 @@
+package xmlSaver;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("xmlSaver.Save")
+@Label("XML Save")
+class XmlSaveEvent extends XmlDocumentEvent {
+}
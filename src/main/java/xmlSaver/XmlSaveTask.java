@@ -0,0 +1,52 @@
+package xmlSaver;
+
+import java.util.concurrent.RecursiveAction;
+
+class XmlSaveTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final XmlSerializer serializer;
+    private final Object[] items;
+    private final boolean entries;
+    private final int chunkSize;
+    private final XmlSaveChunk[] chunks;
+    private final int from;
+    private final int to;
+
+    XmlSaveTask(XmlSerializer serializer, Object[] items, boolean entries, int chunkSize, XmlSaveChunk[] chunks) {
+        this(serializer, items, entries, chunkSize, chunks, 0, chunks.length);
+    }
+
+    private XmlSaveTask(
+        XmlSerializer serializer,
+        Object[] items,
+        boolean entries,
+        int chunkSize,
+        XmlSaveChunk[] chunks,
+        int from,
+        int to
+    ) {
+        this.serializer = serializer;
+        this.items = items;
+        this.entries = entries;
+        this.chunkSize = chunkSize;
+        this.chunks = chunks;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (this.to - this.from == 1) {
+            var start = this.from * this.chunkSize;
+            var end = Math.min(start + this.chunkSize, this.items.length);
+            this.chunks[this.from] = this.serializer.saveChunk(this.items, start, end, this.entries);
+            return;
+        }
+        var middle = (this.from + this.to) >>> 1;
+        invokeAll(
+            new XmlSaveTask(this.serializer, this.items, this.entries, this.chunkSize, this.chunks, this.from, middle),
+            new XmlSaveTask(this.serializer, this.items, this.entries, this.chunkSize, this.chunks, middle, this.to)
+        );
+    }
+}
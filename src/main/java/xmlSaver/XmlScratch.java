@@ -0,0 +1,44 @@
+package xmlSaver;
+
+// buffers of one thread, lent to the writer or the parser of a run and reused by the next one
+class XmlScratch {
+    // a run with a huge text value must not pin its buffer for the lifetime of the thread
+    private static final int RETAINED_CAPACITY = 1 << 16;
+
+    private StringBuilder text = new StringBuilder();
+    private final char[] chars = new char[8192];
+    // direct mapped, a collision replaces the slot, so the table never grows past its fixed size
+    private final String[] names = new String[1024];
+
+    StringBuilder getText() {
+        if (this.text.capacity() > RETAINED_CAPACITY) {
+            this.text = new StringBuilder();
+        }
+        this.text.setLength(0);
+        return this.text;
+    }
+
+    char[] getChars() {
+        return chars;
+    }
+
+    // the same element, attribute and class names repeat through a document, every node shares one copy of them,
+    // interned names are also identical to the field names the deserializer looks them up with
+    String share(StringBuilder text, boolean intern) {
+        var length = text.length();
+        if (length > 64) {
+            return text.toString();
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        var slot = (hash ^ (hash >>> 16)) & (this.names.length - 1);
+        var name = this.names[slot];
+        if (name == null || name.length() != length || !name.contentEquals(text)) {
+            name = intern ? text.toString().intern() : text.toString();
+            this.names[slot] = name;
+        }
+        return name;
+    }
+}
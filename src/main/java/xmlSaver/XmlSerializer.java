@@ -2,34 +2,331 @@ package xmlSaver;
 
 import org.apache.commons.lang3.ClassUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 public class XmlSerializer {
     private XmlSerializerRegistry registry;
+    private boolean streaming;
+    private boolean generatedCodecs;
+    // the class table is written into the root node, so it needs the whole tree before anything is written
+    private LinkedHashMap<String, String> classTable;
+    // workers never fork again, only containers met by the serializer that owns the document are split
+    private ForkJoinPool parallelPool;
+    private int parallelThreshold;
+    private XmlSaveChunk chunk;
+    private boolean deferredTypes;
+    // journaled saves keep ids between saves, so every object is tracked by identity
+    private boolean identityTracking;
+    private XmlJournal journal;
+    // byte arrays are kept raw in the node tree, a tree written after the save returns needs its own copies
+    private boolean snapshotValues;
+    private XmlMetrics metrics;
+    private XmlSaveEvent event;
+    private XmlMetricsListener metricsListener;
+    // instances built from options keep one run per thread, its tables and buffers are reused by the next save
+    private XmlSerializerOptions options;
+    private ThreadLocal<XmlSerializer> runs;
+    private XmlScratch scratch;
+    private boolean running;
+
+    private XmlSerializer() {
+    }
+
+    XmlSerializer(XmlSerializerOptions options) {
+        this.options = options;
+        this.runs = ThreadLocal.withInitial(() -> {
+            var run = create(options);
+            run.scratch = new XmlScratch();
+            return run;
+        });
+    }
+
+    public static void saveXml(Object object, String path, XmlSerializerOptions options) {
+        saveXml(create(options), object, path, options);
+    }
+
+    private static void saveXml(XmlSerializer serializer, Object object, String path, XmlSerializerOptions options) {
+        checkLazyIndex(options);
+        serializer.saveXmlInternal(object, createWriter(new XmlNodeWriter(path), options));
+        if (options.isLazyIndex()) {
+            XmlLazyDocument.writeIndex(path);
+        }
+    }
 
     public static void saveXml(Object object, String path, XmlSerializerRegistry registry) {
-        var serializer = new XmlSerializer();
-        serializer.registry = registry;
-        serializer.saveXmlInternal(object, path);
+        saveXml(object, path, new XmlSerializerOptions().setRegistry(registry));
     }
 
     public static void saveXml(Object object, String path) {
-        new XmlSerializer().saveXmlInternal(object, path);
+        saveXml(object, path, new XmlSerializerOptions());
+    }
+
+    public static void saveXml(Object object, OutputStream stream, XmlSerializerOptions options) {
+        create(options).saveXmlInternal(object, createWriter(new XmlNodeWriter(stream), options));
+    }
+
+    public static void saveXml(Object object, OutputStream stream, XmlSerializerRegistry registry) {
+        saveXml(object, stream, new XmlSerializerOptions().setRegistry(registry));
+    }
+
+    public static void saveXml(Object object, OutputStream stream) {
+        saveXml(object, stream, new XmlSerializerOptions());
+    }
+
+    public static void saveXml(Object object, Writer writer, XmlSerializerOptions options) {
+        create(options).saveXmlInternal(object, createWriter(new XmlNodeWriter(writer), options));
+    }
+
+    public static void saveXml(Object object, Writer writer, XmlSerializerRegistry registry) {
+        saveXml(object, writer, new XmlSerializerOptions().setRegistry(registry));
+    }
+
+    public static void saveXml(Object object, Writer writer) {
+        saveXml(object, writer, new XmlSerializerOptions());
+    }
+
+    public static void saveXml(Object object, WritableByteChannel channel, XmlSerializerOptions options) {
+        create(options).saveXmlInternal(object, createWriter(new XmlNodeWriter(channel), options));
+    }
+
+    public static void saveXml(Object object, WritableByteChannel channel, XmlSerializerRegistry registry) {
+        saveXml(object, channel, new XmlSerializerOptions().setRegistry(registry));
+    }
+
+    public static void saveXml(Object object, WritableByteChannel channel) {
+        saveXml(object, channel, new XmlSerializerOptions());
+    }
+
+    public static void saveXmlStreaming(Object object, String path, XmlSerializerRegistry registry) {
+        saveXml(object, path, new XmlSerializerOptions().setRegistry(registry).setStreaming(true));
+    }
+
+    public static void saveXmlStreaming(Object object, String path) {
+        saveXml(object, path, new XmlSerializerOptions().setStreaming(true));
+    }
+
+    // the snapshot is taken on the calling thread, encoding and disk I/O run on the options' executor
+    public static CompletableFuture<Void> saveXmlAsync(Object object, String path, XmlSerializerOptions options) {
+        checkLazyIndex(options);
+        XmlWriteBehind.Snapshot snapshot;
+        try {
+            var serializer = create(options);
+            if (options.getSnapshot() == XmlSnapshot.BUFFER) {
+                var buffer = new ByteArrayOutputStream();
+                serializer.saveXmlInternal(object, createWriter(new XmlNodeWriter(buffer), options));
+                snapshot = buffer::writeTo;
+            } else {
+                serializer.snapshotValues = true;
+                var root = serializer.saveTree(object);
+                snapshot = x -> serializer.writeTree(root, createWriter(new XmlNodeWriter(x), options));
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return XmlWriteBehind.submit(Path.of(path), snapshot, options.isLazyIndex(), options.getExecutor());
+    }
+
+    public static CompletableFuture<Void> saveXmlAsync(Object object, String path, XmlSerializerRegistry registry) {
+        return saveXmlAsync(object, path, new XmlSerializerOptions().setRegistry(registry));
+    }
+
+    public static CompletableFuture<Void> saveXmlAsync(Object object, String path) {
+        return saveXmlAsync(object, path, new XmlSerializerOptions());
+    }
+
+    public void save(Object object, String path) {
+        var run = acquire();
+        try {
+            saveXml(run, object, path, this.options);
+        } finally {
+            run.running = false;
+        }
+    }
+
+    public void save(Object object, OutputStream stream) {
+        save(object, new XmlNodeWriter(stream));
     }
 
-    private final HashMap<Object, String> trackingObjects = new HashMap<>();
+    public void save(Object object, Writer writer) {
+        save(object, new XmlNodeWriter(writer));
+    }
+
+    public void save(Object object, WritableByteChannel channel) {
+        save(object, new XmlNodeWriter(channel));
+    }
+
+    // the snapshot outlives the call, so it is taken by a run of its own
+    public CompletableFuture<Void> saveAsync(Object object, String path) {
+        return saveXmlAsync(object, path, this.options);
+    }
+
+    private void save(Object object, XmlNodeWriter xmlWriter) {
+        var run = acquire();
+        try {
+            run.saveXmlInternal(object, createWriter(xmlWriter, this.options));
+        } finally {
+            run.running = false;
+        }
+    }
+
+    private XmlSerializer acquire() {
+        var run = this.runs.get();
+        if (run.running) {
+            // a save started from inside another save on this thread cannot share its tables
+            return create(this.options);
+        }
+        run.running = true;
+        run.reset();
+        return run;
+    }
 
-    private void saveXmlInternal(Object object, String path) {
-        var xmlObject = new XmlNode("root");
-        saveAtomic(object, xmlObject);
+    private void reset() {
+        // tables that grew for one large document are dropped instead of cleared on every later run
+        if (this.trackingObjects.size() > RETAINED_TRACKING) {
+            this.trackingObjects = new HashMap<>();
+        } else {
+            this.trackingObjects.clear();
+        }
+        if (this.strictTrackingObjects.size() > RETAINED_TRACKING) {
+            this.strictTrackingObjects = new IdentityHashMap<>();
+        } else {
+            this.strictTrackingObjects.clear();
+        }
+        startRun(this.options);
+    }
+
+    private static void checkLazyIndex(XmlSerializerOptions options) {
+        if (options.isLazyIndex() &&
+            (options.getFormat() != XmlFormat.XML || options.getCompression() != XmlCompression.NONE)) {
+            throw new IllegalArgumentException("lazy index needs an uncompressed XML document");
+        }
+    }
+
+    static XmlNodeWriter createWriter(XmlNodeWriter xmlWriter, XmlSerializerOptions options) {
+        return xmlWriter.
+            setCompression(options.getCompression(), options.getCompressionLevel()).
+            setFormat(options.getFormat());
+    }
 
-        var xmlWriter = new XmlNodeWriter(path);
-        xmlWriter.save(xmlObject);
+    private static XmlSerializer create(XmlSerializerOptions options) {
+        var serializer = new XmlSerializer();
+        serializer.options = options;
+        serializer.registry = options.getRegistry();
+        serializer.streaming = options.isStreaming() && !options.isClassTable();
+        serializer.generatedCodecs = options.isGeneratedCodecs();
+        serializer.parallelPool = options.isParallel() ? ForkJoinPool.commonPool() : null;
+        serializer.parallelThreshold = options.getParallelThreshold();
+        serializer.startRun(options);
+        return serializer;
     }
 
-    private void saveAtomic(Object target, XmlNode xmlDescription) {
+    private void startRun(XmlSerializerOptions options) {
+        this.classTable = options.isClassTable() ? new LinkedHashMap<>() : null;
+        this.metrics = null;
+        this.event = null;
+        // metrics are only collected for a listener or a running flight recording
+        var event = new XmlSaveEvent();
+        if (options.getMetricsListener() != null || event.isEnabled()) {
+            event.begin();
+            this.metrics = new XmlMetrics();
+            this.event = event;
+            this.metricsListener = options.getMetricsListener();
+        }
+    }
+
+    static XmlSerializer createJournaled(XmlSerializerOptions options) {
+        var serializer = create(options);
+        serializer.parallelPool = null;
+        serializer.identityTracking = true;
+        // a journal keeps its serializer between saves, there is no single document to report on
+        serializer.metrics = null;
+        return serializer;
+    }
+
+    void setJournal(XmlJournal journal) {
+        this.journal = journal;
+    }
+
+    void trackLoaded(Object object, String objectId) {
+        this.strictTrackingObjects.put(object, objectId);
+    }
+
+    int getTrackedCount() {
+        return this.trackingObjects.size() + this.strictTrackingObjects.size();
+    }
+
+    private XmlSerializer createWorker() {
+        var worker = new XmlSerializer();
+        worker.registry = this.registry;
+        worker.generatedCodecs = this.generatedCodecs;
+        worker.chunk = new XmlSaveChunk();
+        worker.deferredTypes = this.classTable != null;
+        worker.metrics = this.metrics;
+        worker.snapshotValues = this.snapshotValues;
+        return worker;
+    }
+
+    private static final int RETAINED_TRACKING = 1 << 12;
+
+    private HashMap<Object, String> trackingObjects = new HashMap<>();
+    private IdentityHashMap<Object, String> strictTrackingObjects = new IdentityHashMap<>();
+
+    void saveXmlInternal(Object object, XmlNodeWriter xmlWriter) {
+        if (this.streaming) {
+            xmlWriter.setMetrics(this.metrics).setScratch(this.scratch).open();
+            try {
+                saveRoot(object, new XmlStreamingSink(xmlWriter));
+            } catch (RuntimeException | Error e) {
+                xmlWriter.abort();
+                throw e;
+            }
+            xmlWriter.close();
+            report();
+            return;
+        }
+        writeTree(saveTree(object), xmlWriter);
+    }
+
+    private void writeTree(XmlNode root, XmlNodeWriter xmlWriter) {
+        xmlWriter.setMetrics(this.metrics).setScratch(this.scratch).save(root);
+        report();
+    }
+
+    private void report() {
+        if (this.metrics == null) {
+            return;
+        }
+        this.metrics.finish(getTrackedCount());
+        this.metrics.commit(this.event);
+        if (this.metricsListener != null) {
+            this.metricsListener.saved(this.metrics);
+        }
+    }
+
+    private XmlNode saveTree(Object object) {
+        var xmlBuilder = new XmlNodeBuilder();
+        saveRoot(object, xmlBuilder);
+        if (this.classTable != null && !this.classTable.isEmpty()) {
+            xmlBuilder.getRoot().appendAttribute("classes", String.join(" ", this.classTable.keySet()));
+        }
+        return xmlBuilder.getRoot();
+    }
+
+    private void saveRoot(Object object, XmlNodeSink xmlDescription) {
+        xmlDescription.beginNode("root");
+        saveAtomic(object, xmlDescription);
+        xmlDescription.endNode();
+    }
+
+    void saveAtomic(Object target, XmlNodeSink xmlDescription) {
         if (target == null) {
             saveNull(xmlDescription);
             return;
@@ -50,130 +347,268 @@ public class XmlSerializer {
         }
     }
 
-    private void saveNull(XmlNode xmlDescription) {
-        xmlDescription.appendAttribute("class", Void.TYPE.getCanonicalName());
+    private void saveNull(XmlNodeSink xmlDescription) {
+        saveClass(Void.TYPE.getCanonicalName(), xmlDescription);
         xmlDescription.setValue("null");
     }
 
-    private void savePrimitive(Object target, XmlNode xmlDescription) {
-        xmlDescription.appendAttribute("class", target.getClass().getCanonicalName());
-        xmlDescription.setValue(target.toString());
+    private void savePrimitive(Object target, XmlNodeSink xmlDescription) {
+        saveClass(target.getClass().getCanonicalName(), xmlDescription);
+        xmlDescription.setValue(target);
     }
 
-    private void saveEnum(Object target, XmlNode xmlDescription) {
-        xmlDescription.appendAttribute("class", target.getClass().getCanonicalName());
+    private void saveEnum(Object target, XmlNodeSink xmlDescription) {
+        saveClass(target.getClass().getCanonicalName(), xmlDescription);
         xmlDescription.setValue(((Enum<?>) target).name());
     }
 
-    private void saveArray(Object target, XmlNode xmlDescription) {
-        xmlDescription.appendAttribute("class", getArrayCType(target.getClass()).getCanonicalName());
+    private void saveArray(Object target, XmlNodeSink xmlDescription) {
+        saveClass(getArrayCType(target.getClass()).getCanonicalName(), xmlDescription);
         xmlDescription.appendAttribute("dimension", String.valueOf(getArrayDimension(target.getClass())));
-        for (Object e : getObjectArraySafe(target)) {
-            saveAtomic(e, new XmlNode(
-                "item",
-                xmlDescription
-            ));
-        }
-    }
-
-    private void saveCollection(Object target, XmlNode xmlDescription) {
-        xmlDescription.appendAttribute("class", target.getClass().getCanonicalName());
-        ((Collection<?>) target).
-            forEach(x -> saveAtomic(x, new XmlNode(
-                    "item",
-                    xmlDescription
-                )
-                )
+        if (XmlPrimitiveArrays.isPackable(target.getClass())) {
+            xmlDescription.appendAttribute("encoding", XmlPrimitiveArrays.getEncoding(target.getClass()));
+            if (target instanceof byte[]) {
+                // the writer encodes it a chunk at a time, the binary format stores it as it is
+                xmlDescription.setValue(this.snapshotValues ? ((byte[]) target).clone() : target);
+            } else {
+                xmlDescription.setValue(XmlPrimitiveArrays.encode(target));
+            }
+            return;
+        }
+        var items = getObjectArraySafe(target);
+        if (isParallel(items.length)) {
+            saveParallel(items, false, xmlDescription);
+            return;
+        }
+        for (Object e : items) {
+            xmlDescription.beginNode("item");
+            saveAtomic(e, xmlDescription);
+            xmlDescription.endNode();
+        }
+    }
+
+    private void saveCollection(Object target, XmlNodeSink xmlDescription) {
+        saveClass(target.getClass().getCanonicalName(), xmlDescription);
+        var collection = (Collection<?>) target;
+        if (isParallel(collection.size())) {
+            saveParallel(collection.toArray(), false, xmlDescription);
+            return;
+        }
+        collection.
+            forEach(x -> {
+                    xmlDescription.beginNode("item");
+                    saveAtomic(x, xmlDescription);
+                    xmlDescription.endNode();
+                }
             );
     }
 
-    private void saveMap(Object target, XmlNode xmlDescription) {
-        xmlDescription.appendAttribute("class", target.getClass().getCanonicalName());
-        ((Map<?, ?>) target).forEach((k, v) -> {
-                var itemXmlDescription = new XmlNode("item", xmlDescription);
-                var keyXmlDescription = new XmlNode(
-                    "key",
-                    itemXmlDescription
-                );
-                var valueXmlDescription = new XmlNode(
-                    "value",
-                    itemXmlDescription
-                );
-                saveAtomic(k, keyXmlDescription);
-                saveAtomic(v, valueXmlDescription);
+    private void saveMap(Object target, XmlNodeSink xmlDescription) {
+        saveClass(target.getClass().getCanonicalName(), xmlDescription);
+        var map = (Map<?, ?>) target;
+        if (isParallel(map.size())) {
+            saveParallel(map.entrySet().toArray(), true, xmlDescription);
+            return;
+        }
+        map.forEach((k, v) -> {
+                xmlDescription.beginNode("item");
+                saveEntry(k, v, xmlDescription);
+                xmlDescription.endNode();
             }
         );
     }
 
-    private void saveObject(Object object, XmlNode xmlDescription) {
-        var clazz = object.getClass();
-        XmlSerializerRegistry.XmlSerializationStrategy strategy = null;
-        if (this.registry != null) {
-            strategy = this.registry.getClassStrategy(clazz);
+    private void saveEntry(Object key, Object value, XmlNodeSink xmlDescription) {
+        xmlDescription.beginNode("key");
+        saveAtomic(key, xmlDescription);
+        xmlDescription.endNode();
+        xmlDescription.beginNode("value");
+        saveAtomic(value, xmlDescription);
+        xmlDescription.endNode();
+    }
+
+    private boolean isParallel(int size) {
+        return this.parallelPool != null && size >= this.parallelThreshold;
+    }
+
+    private void saveParallel(Object[] items, boolean entries, XmlNodeSink xmlDescription) {
+        var chunkSize = Math.max(1, items.length / (this.parallelPool.getParallelism() * 4));
+        var chunks = new XmlSaveChunk[(items.length + chunkSize - 1) / chunkSize];
+        this.parallelPool.invoke(new XmlSaveTask(this, items, entries, chunkSize, chunks));
+        // merging in document order replays the tracking a sequential save would have done
+        for (XmlSaveChunk savedChunk : chunks) {
+            for (XmlNode item : savedChunk.getItems()) {
+                mergeNode(item, savedChunk);
+                xmlDescription.appendNode(item);
+            }
+        }
+    }
+
+    XmlSaveChunk saveChunk(Object[] items, int from, int to, boolean entries) {
+        var worker = createWorker();
+        var xmlBuilder = worker.chunk.getBuilder();
+        xmlBuilder.beginNode("chunk");
+        for (int i = from; i < to; i++) {
+            xmlBuilder.beginNode("item");
+            if (entries) {
+                var entry = (Map.Entry<?, ?>) items[i];
+                worker.saveEntry(entry.getKey(), entry.getValue(), xmlBuilder);
+            } else {
+                worker.saveAtomic(items[i], xmlBuilder);
+            }
+            xmlBuilder.endNode();
         }
-        if (!clazz.isAnnotationPresent(XML.class) && strategy == null) {
+        xmlBuilder.endNode();
+        return worker.chunk;
+    }
+
+    private void mergeNode(XmlNode node, XmlSaveChunk savedChunk) {
+        var localId = node.getAttribute("objectId");
+        if (localId != null) {
+            var object = savedChunk.getDefinition(node);
+            if (object == null) {
+                var referenced = savedChunk.getObject(localId);
+                node.appendAttribute(
+                    "objectId",
+                    getObjIdentity(referenced, XmlClassDescriptor.of(referenced.getClass(), this.registry))
+                );
+                return;
+            }
+            var descriptor = XmlClassDescriptor.of(object.getClass(), this.registry);
+            var objectId = getObjIdentity(object, descriptor);
+            if (objectId != null) {
+                // written before the container or by an earlier chunk, so this occurrence is only a reference
+                node.clear();
+                node.appendAttribute("objectId", objectId);
+                return;
+            }
+            node.appendAttribute("objectId", trackObject(object, descriptor));
+            if (this.metrics != null) {
+                this.metrics.countObject(object.getClass());
+            }
+        }
+        var clazzName = this.classTable != null ? node.getAttribute("type") : null;
+        if (clazzName != null) {
+            node.appendAttribute("type", getTypeId(clazzName));
+        }
+        for (XmlNode childNode : node.getChildNodes()) {
+            mergeNode(childNode, savedChunk);
+        }
+    }
+
+    private void saveObject(Object object, XmlNodeSink xmlDescription) {
+        var clazz = object.getClass();
+        var descriptor = XmlClassDescriptor.of(clazz, this.registry);
+        if (!descriptor.isSavable()) {
             throw new IllegalStateException(object.getClass() + " isn`t annotated with @xml.XML");
         }
-        if (this.isTracking(object)) {
-            xmlDescription.appendAttribute("objectId", this.getObjIdentity(object));
+        var objectId = this.getObjIdentity(object, descriptor);
+        if (this.metrics != null) {
+            this.metrics.addLookup(objectId != null);
+        }
+        if (this.journal != null) {
+            // a journal record only references nested objects, each of them gets a record of its own
+            xmlDescription.appendAttribute("objectId", objectId != null ? objectId : this.trackObject(object, descriptor));
+            this.journal.enqueue(object);
             return;
-        } else {
-            this.trackObject(object);
-            xmlDescription.appendAttribute("objectId", this.getObjIdentity(object));
         }
-        xmlDescription.appendAttribute("class", clazz.getCanonicalName());
-        var savableFields = strategy != null ? strategy.getFields() : Arrays.stream(collectFields(clazz)).
-            filter(x -> x.isAnnotationPresent(XML.class)).
-            toArray(Field[]::new);
-        Arrays.stream(savableFields).forEach(x -> saveField(object, x, xmlDescription));
+        if (objectId != null) {
+            xmlDescription.appendAttribute("objectId", objectId);
+            return;
+        }
+        objectId = this.trackObject(object, descriptor);
+        xmlDescription.appendAttribute("objectId", objectId);
+        if (this.chunk != null) {
+            this.chunk.define(objectId, object);
+        }
+        if (this.metrics == null) {
+            saveDefinition(object, descriptor, xmlDescription);
+            return;
+        }
+        if (this.chunk == null) {
+            // definitions of a parallel chunk may still turn into references, they are counted by the merge
+            this.metrics.countObject(clazz);
+        }
+        var start = System.nanoTime();
+        var outer = this.metrics.enterObject();
+        saveDefinition(object, descriptor, xmlDescription);
+        this.metrics.exitObject(clazz, start, outer);
     }
 
-    private void saveField(Object target, Field field, XmlNode parent) {
-        var xmlDescription = new XmlNode(field.getName(), parent);
-        var fieldValue = getFieldValue(target, field);
-        saveAtomic(fieldValue, xmlDescription);
+    String saveRecord(Object object, XmlNodeSink xmlDescription) {
+        var descriptor = XmlClassDescriptor.of(object.getClass(), this.registry);
+        var objectId = this.getObjIdentity(object, descriptor);
+        xmlDescription.beginNode("object");
+        xmlDescription.appendAttribute("objectId", objectId);
+        saveDefinition(object, descriptor, xmlDescription);
+        xmlDescription.endNode();
+        return objectId;
     }
 
-    private void trackObject(Object object) {
-        if (!this.isTracking(object)) {
-            this.trackingObjects.put(
-                object,
-                String.valueOf(1000 + this.trackingObjects.size())
-            );
+    private void saveDefinition(Object object, XmlClassDescriptor descriptor, XmlNodeSink xmlDescription) {
+        saveClass(object.getClass().getCanonicalName(), xmlDescription);
+        var generatedCodec = getCodec(descriptor);
+        if (generatedCodec != null) {
+            generatedCodec.save(object, new CodecWriter(xmlDescription));
+            return;
+        }
+        for (XmlFieldAccessor accessor : descriptor.getAccessors()) {
+            saveField(object, accessor, xmlDescription);
         }
     }
 
-    private boolean isTracking(Object object) {
-        return this.getObjIdentity(object) != null;
+    private XmlGeneratedCodec<Object> getCodec(XmlClassDescriptor descriptor) {
+        var generatedCodec = descriptor.getGeneratedCodec();
+        return generatedCodec == null && this.generatedCodecs ? descriptor.getRuntimeCodec() : generatedCodec;
     }
 
-    private String getObjIdentity(Object object) {
-        return this.trackingObjects.
-            entrySet().
-            stream().
-            filter(
-                    x -> object.getClass().getAnnotation(XML.class) == null ||
-                            object.getClass().getAnnotation(XML.class).isStrict() ?
-                            x.getKey() == object :
-                            x.getKey().equals(object)
-            ).
-            map(Map.Entry::getValue).
-            findAny().
-            orElse(null);
+    void saveClass(String clazzName, XmlNodeSink xmlDescription) {
+        if (this.classTable == null || this.journal != null) {
+            // workers of a class table save keep the name under `type` until the merge assigns the table id,
+            // journal records are replayed against the table of an older base and always carry the name
+            xmlDescription.appendAttribute(this.deferredTypes ? "type" : "class", clazzName);
+            return;
+        }
+        xmlDescription.appendAttribute("type", getTypeId(clazzName));
     }
 
-    static Field[] collectFields(Class<?> clazz) {
-        var fields = new ArrayList<Field>();
-        collectFields(clazz, fields);
-        return fields.toArray(Field[]::new);
+    private String getTypeId(String clazzName) {
+        var typeId = this.classTable.get(clazzName);
+        if (typeId == null) {
+            typeId = String.valueOf(this.classTable.size());
+            this.classTable.put(clazzName, typeId);
+        }
+        return typeId;
     }
 
-    private static void collectFields(Class<?> clazz, ArrayList<Field> fields) {
-        if (clazz == Object.class) {
-            return;
+    private void saveField(Object target, XmlFieldAccessor accessor, XmlNodeSink xmlDescription) {
+        Object fieldValue;
+        if (this.metrics == null) {
+            fieldValue = accessor.get(target);
+        } else {
+            var start = System.nanoTime();
+            fieldValue = accessor.get(target);
+            this.metrics.addReflection(start);
         }
-        fields.addAll(Arrays.asList(clazz.getDeclaredFields()));
-        collectFields(clazz.getSuperclass(), fields);
+        xmlDescription.beginNode(accessor.getName());
+        saveAtomic(fieldValue, xmlDescription);
+        xmlDescription.endNode();
+    }
+
+    private String trackObject(Object object, XmlClassDescriptor descriptor) {
+        var objectId = String.valueOf(1000 + this.trackingObjects.size() + this.strictTrackingObjects.size());
+        if (descriptor.isStrict() || this.identityTracking) {
+            this.strictTrackingObjects.put(object, objectId);
+        } else {
+            this.trackingObjects.put(object, objectId);
+        }
+        return objectId;
+    }
+
+    private String getObjIdentity(Object object, XmlClassDescriptor descriptor) {
+        return descriptor.isStrict() || this.identityTracking ?
+            this.strictTrackingObjects.get(object) :
+            this.trackingObjects.get(object);
     }
 
     private static Class<?> getArrayCType(Class<?> arrayClazz) {
@@ -201,16 +636,74 @@ public class XmlSerializer {
         return safeArr;
     }
 
-    private static synchronized Object getFieldValue(Object target, Field field) {
-        var oldAccessibleState = field.canAccess(target);
-        field.setAccessible(true);
-        Object value;
-        try {
-            value = field.get(target);
-        } catch (IllegalAccessException e) {
-            throw new IllegalStateException("wtf");
+    private class CodecWriter implements XmlCodecWriter {
+        private final XmlNodeSink xmlDescription;
+
+        CodecWriter(XmlNodeSink xmlDescription) {
+            this.xmlDescription = xmlDescription;
+        }
+
+        @Override
+        public void writeObject(String name, Object value) {
+            this.xmlDescription.beginNode(name);
+            saveAtomic(value, this.xmlDescription);
+            this.xmlDescription.endNode();
+        }
+
+        @Override
+        public void writeString(String name, String value) {
+            if (value == null) {
+                writeObject(name, null);
+            } else {
+                writeValue(name, "java.lang.String", value);
+            }
+        }
+
+        @Override
+        public void writeBoolean(String name, boolean value) {
+            writeValue(name, "java.lang.Boolean", value);
+        }
+
+        @Override
+        public void writeByte(String name, byte value) {
+            writeValue(name, "java.lang.Byte", value);
+        }
+
+        @Override
+        public void writeShort(String name, short value) {
+            writeValue(name, "java.lang.Short", value);
+        }
+
+        @Override
+        public void writeChar(String name, char value) {
+            writeValue(name, "java.lang.Character", value);
+        }
+
+        @Override
+        public void writeInt(String name, int value) {
+            writeValue(name, "java.lang.Integer", value);
+        }
+
+        @Override
+        public void writeLong(String name, long value) {
+            writeValue(name, "java.lang.Long", value);
+        }
+
+        @Override
+        public void writeFloat(String name, float value) {
+            writeValue(name, "java.lang.Float", value);
+        }
+
+        @Override
+        public void writeDouble(String name, double value) {
+            writeValue(name, "java.lang.Double", value);
+        }
+
+        private void writeValue(String name, String clazzName, Object value) {
+            this.xmlDescription.beginNode(name);
+            saveClass(clazzName, this.xmlDescription);
+            this.xmlDescription.setValue(value);
+            this.xmlDescription.endNode();
         }
-        field.setAccessible(oldAccessibleState);
-        return value;
     }
 }
@@ -0,0 +1,164 @@
+package xmlSaver;
+
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+public class XmlSerializerOptions {
+    private XmlSerializerRegistry registry;
+    private boolean streaming;
+    private boolean classTable;
+    private boolean generatedCodecs;
+    private boolean parallel;
+    private int parallelThreshold = 1024;
+    private XmlCompression compression = XmlCompression.NONE;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private XmlFormat format = XmlFormat.XML;
+    private boolean lazyIndex;
+    private XmlSnapshot snapshot = XmlSnapshot.NODES;
+    private Executor executor;
+    private XmlMetricsListener metricsListener;
+
+    public XmlSerializerOptions setRegistry(XmlSerializerRegistry registry) {
+        this.registry = registry;
+        return this;
+    }
+
+    public XmlSerializerOptions setStreaming(boolean streaming) {
+        this.streaming = streaming;
+        return this;
+    }
+
+    public XmlSerializerOptions setClassTable(boolean classTable) {
+        this.classTable = classTable;
+        return this;
+    }
+
+    // codecs are spun at runtime for classes without one generated by the annotation processor
+    public XmlSerializerOptions setGeneratedCodecs(boolean generatedCodecs) {
+        this.generatedCodecs = generatedCodecs;
+        return this;
+    }
+
+    public XmlSerializerOptions setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    public XmlSerializerOptions setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("parallel threshold must be positive");
+        }
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    public XmlSerializerOptions setCompression(XmlCompression compression) {
+        this.compression = compression != null ? compression : XmlCompression.NONE;
+        return this;
+    }
+
+    public XmlSerializerOptions setCompressionLevel(int compressionLevel) {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION &&
+            (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("compression level must be between 0 and 9");
+        }
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    public XmlSerializerOptions setFormat(XmlFormat format) {
+        this.format = format != null ? format : XmlFormat.XML;
+        return this;
+    }
+
+    public XmlSerializerOptions setLazyIndex(boolean lazyIndex) {
+        this.lazyIndex = lazyIndex;
+        return this;
+    }
+
+    public XmlSerializerOptions setSnapshot(XmlSnapshot snapshot) {
+        this.snapshot = snapshot != null ? snapshot : XmlSnapshot.NODES;
+        return this;
+    }
+
+    public XmlSerializerOptions setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public XmlSerializerOptions setMetricsListener(XmlMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        return this;
+    }
+
+    // the instance keeps a copy, later changes to these options do not reach it
+    public XmlSerializer build() {
+        var options = new XmlSerializerOptions();
+        options.registry = this.registry;
+        options.streaming = this.streaming;
+        options.classTable = this.classTable;
+        options.generatedCodecs = this.generatedCodecs;
+        options.parallel = this.parallel;
+        options.parallelThreshold = this.parallelThreshold;
+        options.compression = this.compression;
+        options.compressionLevel = this.compressionLevel;
+        options.format = this.format;
+        options.lazyIndex = this.lazyIndex;
+        options.snapshot = this.snapshot;
+        options.executor = this.executor;
+        options.metricsListener = this.metricsListener;
+        return new XmlSerializer(options);
+    }
+
+    XmlSerializerRegistry getRegistry() {
+        return registry;
+    }
+
+    boolean isStreaming() {
+        return streaming;
+    }
+
+    boolean isClassTable() {
+        return classTable;
+    }
+
+    boolean isGeneratedCodecs() {
+        return generatedCodecs;
+    }
+
+    boolean isParallel() {
+        return parallel;
+    }
+
+    int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    XmlCompression getCompression() {
+        return compression;
+    }
+
+    int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    XmlFormat getFormat() {
+        return format;
+    }
+
+    boolean isLazyIndex() {
+        return lazyIndex;
+    }
+
+    XmlSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    XmlMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+}
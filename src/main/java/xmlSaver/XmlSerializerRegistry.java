@@ -1,7 +1,6 @@
 package xmlSaver;
 
 import java.lang.reflect.Field;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.function.Supplier;
@@ -20,21 +19,31 @@ public class XmlSerializerRegistry {
     }
 
     static class XmlSerializationStrategy {
-        private final ArrayList<Field> fields = new ArrayList<>();
+        private final Field[] fields;
         private final Supplier generator;
+        private volatile XmlClassDescriptor descriptor;
 
         XmlSerializationStrategy(Supplier generator, Field... fields) {
-            this.fields.addAll(Arrays.asList(fields));
+            this.fields = Arrays.copyOf(fields, fields.length);
             this.generator = generator;
         }
 
         Field[] getFields() {
-            return fields.toArray(Field[]::new);
+            return fields;
         }
 
         Supplier getGenerator() {
             return generator;
         }
+
+        XmlClassDescriptor getDescriptor(Class<?> clazz) {
+            var result = this.descriptor;
+            if (result == null) {
+                result = new XmlClassDescriptor(clazz, this);
+                this.descriptor = result;
+            }
+            return result;
+        }
     }
 }
 
@@ -0,0 +1,8 @@
+package xmlSaver;
+
+public enum XmlSnapshot {
+    // the node tree is captured, encoding and compression run in the background
+    NODES,
+    // the finished document is captured, only disk I/O runs in the background
+    BUFFER
+}
@@ -0,0 +1,73 @@
+package xmlSaver;
+
+import java.util.Arrays;
+
+class XmlStreamingSink extends XmlNodeSink {
+    private final XmlNodeVisitor visitor;
+
+    // the innermost node stays pending until it is known whether it has children
+    private String pendingName;
+    private Object pendingValue;
+    private String[] pendingAttributes = new String[8];
+    private int pendingAttributeCount;
+
+    XmlStreamingSink(XmlNodeVisitor visitor) {
+        this.visitor = visitor;
+    }
+
+    @Override
+    void beginNode(String nodeName) {
+        if (this.pendingName != null) {
+            this.visitor.beginNode(this.pendingName, this.pendingAttributes, this.pendingAttributeCount);
+            clearPending();
+        }
+        this.pendingName = nodeName;
+    }
+
+    @Override
+    void appendAttribute(String attrName, String attrValue) {
+        for (int i = 0; i < this.pendingAttributeCount * 2; i += 2) {
+            if (this.pendingAttributes[i].equals(attrName)) {
+                this.pendingAttributes[i + 1] = attrValue;
+                return;
+            }
+        }
+        var index = this.pendingAttributeCount * 2;
+        if (index == this.pendingAttributes.length) {
+            this.pendingAttributes = Arrays.copyOf(this.pendingAttributes, index * 2);
+        }
+        this.pendingAttributes[index] = attrName;
+        this.pendingAttributes[index + 1] = attrValue;
+        this.pendingAttributeCount++;
+    }
+
+    @Override
+    void setValue(Object content) {
+        this.pendingValue = content;
+    }
+
+    @Override
+    void endNode() {
+        if (this.pendingName != null) {
+            this.visitor.beginNode(this.pendingName, this.pendingValue, this.pendingAttributes, this.pendingAttributeCount);
+            clearPending();
+        }
+        this.visitor.endNode();
+    }
+
+    @Override
+    void appendNode(XmlNode node) {
+        if (this.pendingName != null) {
+            this.visitor.beginNode(this.pendingName, this.pendingAttributes, this.pendingAttributeCount);
+            clearPending();
+        }
+        node.visit(this.visitor);
+    }
+
+    private void clearPending() {
+        this.pendingName = null;
+        this.pendingValue = null;
+        Arrays.fill(this.pendingAttributes, 0, this.pendingAttributeCount * 2, null);
+        this.pendingAttributeCount = 0;
+    }
+}
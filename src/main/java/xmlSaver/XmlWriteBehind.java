@@ -0,0 +1,127 @@
+package xmlSaver;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// one instance per target file, at most one write runs for it and at most one snapshot waits behind that write
+class XmlWriteBehind {
+    // an instance leaves the table once it is idle, so a new instance for the same file never overlaps a write
+    private static final ConcurrentHashMap<Path, XmlWriteBehind> targets = new ConcurrentHashMap<>();
+    private static final ExecutorService defaultExecutor = Executors.newCachedThreadPool(x -> {
+        var thread = new Thread(x, "xmlSaver-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    interface Snapshot {
+        void writeTo(OutputStream stream) throws IOException;
+    }
+
+    private final Path path;
+    private Snapshot pending;
+    private boolean pendingLazyIndex;
+    private CompletableFuture<Void> pendingResult;
+    private boolean writing;
+    private boolean removed;
+
+    private XmlWriteBehind(Path path) {
+        this.path = path;
+    }
+
+    static CompletableFuture<Void> submit(Path path, Snapshot snapshot, boolean lazyIndex, Executor executor) {
+        var target = path.toAbsolutePath().normalize();
+        while (true) {
+            // an instance that went idle and left the table in the meantime is replaced by a fresh one
+            var result = targets.
+                computeIfAbsent(target, XmlWriteBehind::new).
+                enqueue(snapshot, lazyIndex, executor != null ? executor : defaultExecutor);
+            if (result != null) {
+                return result;
+            }
+        }
+    }
+
+    // the file is written next to the target and moved over it, readers never see a partial document
+    static void replace(Path path, Snapshot snapshot) throws IOException {
+        var temporaryPath = Path.of(path + ".tmp");
+        try (var file = new FileOutputStream(temporaryPath.toFile())) {
+            var stream = new BufferedOutputStream(file);
+            snapshot.writeTo(stream);
+            stream.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // null once the instance has left the table
+    private synchronized CompletableFuture<Void> enqueue(Snapshot snapshot, boolean lazyIndex, Executor executor) {
+        if (this.removed) {
+            return null;
+        }
+        // a snapshot that has not been written yet is superseded, its callers complete with the newer write
+        if (this.pendingResult == null) {
+            this.pendingResult = new CompletableFuture<>();
+        }
+        this.pending = snapshot;
+        this.pendingLazyIndex = lazyIndex;
+        var result = this.pendingResult;
+        if (!this.writing) {
+            this.writing = true;
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                this.writing = false;
+                this.pending = null;
+                this.pendingResult = null;
+                remove();
+                result.completeExceptionally(e);
+            }
+        }
+        return result;
+    }
+
+    // called with the lock held and nothing pending or writing
+    private void remove() {
+        this.removed = true;
+        targets.remove(this.path, this);
+    }
+
+    private void drain() {
+        while (true) {
+            Snapshot snapshot;
+            boolean lazyIndex;
+            CompletableFuture<Void> result;
+            synchronized (this) {
+                if (this.pending == null) {
+                    this.writing = false;
+                    remove();
+                    return;
+                }
+                snapshot = this.pending;
+                lazyIndex = this.pendingLazyIndex;
+                result = this.pendingResult;
+                this.pending = null;
+                this.pendingResult = null;
+            }
+            try {
+                replace(this.path, snapshot);
+                if (lazyIndex) {
+                    XmlLazyDocument.writeIndex(this.path.toString());
+                }
+                result.complete(null);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}